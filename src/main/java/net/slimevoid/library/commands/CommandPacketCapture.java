@@ -0,0 +1,68 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.commands;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.ChatComponentText;
+import net.slimevoid.library.network.PacketRecorder;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Starts or stops capturing received packets for replay
+ * <p/>
+ * Usage: /packetcapture start [name] | stop
+ */
+public class CommandPacketCapture extends CommandBase {
+
+    @Override
+    public String getCommandName() {
+        return "packetcapture";
+    }
+
+    @Override
+    public String getCommandUsage(ICommandSender sender) {
+        return "/packetcapture start [name] | stop";
+    }
+
+    @Override
+    public int getRequiredPermissionLevel() {
+        return 3;
+    }
+
+    @Override
+    public void processCommand(ICommandSender sender, String[] args) throws CommandException {
+        if (args.length == 1 && args[0].equals("stop")) {
+            int packets = PacketRecorder.stop();
+            sender.addChatMessage(new ChatComponentText("Packet capture stopped, " + packets + " packets recorded"));
+        } else if (args.length >= 1 && args.length <= 2 && args[0].equals("start")) {
+            String name = args.length == 2 ? args[1] : "capture-" + System.currentTimeMillis();
+            if (!name.matches("[A-Za-z0-9_.-]+")) {
+                throw new WrongUsageException(this.getCommandUsage(sender));
+            }
+            File file = MinecraftServer.getServer().getFile("logs/" + name + ".svpr");
+            try {
+                PacketRecorder.start(file);
+            } catch (IOException e) {
+                throw new CommandException("Unable to start packet capture: " + e.getMessage());
+            }
+            sender.addChatMessage(new ChatComponentText("Capturing packets to " + file.getPath()));
+        } else {
+            throw new WrongUsageException(this.getCommandUsage(sender));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.commands;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.util.ChatComponentText;
+import net.slimevoid.library.network.PacketChannel;
+import net.slimevoid.library.network.PacketStatistics;
+import net.slimevoid.library.util.helpers.PacketHelper;
+
+/**
+ * Shows or resets the packet statistics of the library channels
+ * <p/>
+ * Usage: /packetstats [reset]
+ */
+public class CommandPacketStatistics extends CommandBase {
+
+    @Override
+    public String getCommandName() {
+        return "packetstats";
+    }
+
+    @Override
+    public String getCommandUsage(ICommandSender sender) {
+        return "/packetstats [reset]";
+    }
+
+    @Override
+    public int getRequiredPermissionLevel() {
+        return 3;
+    }
+
+    @Override
+    public void processCommand(ICommandSender sender, String[] args) throws CommandException {
+        if (args.length > 1 || (args.length == 1 && !args[0].equals("reset"))) {
+            throw new WrongUsageException(this.getCommandUsage(sender));
+        }
+        for (PacketChannel channel : PacketHelper.getChannels()) {
+            PacketStatistics statistics = channel.getStatistics();
+            if (args.length == 1) {
+                statistics.reset();
+                continue;
+            }
+            sender.addChatMessage(new ChatComponentText(channel.getName()
+                    + ": sent " + statistics.getPacketsSent() + " (" + statistics.getBytesSent() + " bytes)"
+                    + ", received " + statistics.getPacketsReceived() + " (" + statistics.getBytesReceived() + " bytes)"));
+            sender.addChatMessage(new ChatComponentText(" " + PacketStatistics.CSV_HEADER));
+            for (String row : statistics.getRows()) {
+                sender.addChatMessage(new ChatComponentText(" " + row));
+            }
+        }
+        if (args.length == 1) {
+            sender.addChatMessage(new ChatComponentText("Packet statistics reset"));
+        }
+    }
+}
@@ -17,9 +17,18 @@ import net.minecraftforge.fml.common.SidedProxy;
 import net.minecraftforge.fml.common.event.FMLInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPostInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
+import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
+import net.minecraftforge.fml.common.event.FMLServerStoppingEvent;
+import net.minecraftforge.fml.relauncher.Side;
+import net.slimevoid.library.commands.CommandPacketCapture;
+import net.slimevoid.library.commands.CommandPacketStatistics;
 import net.slimevoid.library.core.lib.ConfigurationLib;
 import net.slimevoid.library.core.lib.CoreLib;
+import net.slimevoid.library.network.PacketChunkTiles;
+import net.slimevoid.library.network.PacketRecorder;
+import net.slimevoid.library.network.executor.PacketChunkTilesExecutor;
 import net.slimevoid.library.proxy.ICommonProxy;
+import net.slimevoid.library.util.helpers.PacketHelper;
 import net.slimevoid.library.util.helpers.ResourceHelper;
 import net.slimevoid.library.util.helpers.SlimevoidHelper;
 import net.slimevoid.library.util.json.JSONLoader;
@@ -40,6 +49,19 @@ public class SlimevoidLib {
         proxy.preInit();
         ConfigurationLib.preInit(event.getSuggestedConfigurationFile());
         SlimevoidHelper.init();
+        registerPackets();
+    }
+
+    /**
+     * Registers the library channel, alike on both sides so that the server
+     * knows the index of the packets it only sends
+     */
+    private static void registerPackets() {
+        PacketHelper.registerHandler();
+        PacketHelper.getChannel(CoreLib.MOD_ID).registerExecutor(PacketChunkTilesExecutor.class,
+                PacketChunkTiles.class,
+                0,
+                Side.CLIENT);
     }
 
     @EventHandler
@@ -49,6 +71,8 @@ public class SlimevoidLib {
         SlimevoidHelper.init();
         ResourceHelper.processVariants();
         ConfigurationLib.init();
+        proxy.registerTickHandlers();
+        proxy.registerEventHandlers();
         XMLVariables.registerDefaultXMLVariables();
     }
 
@@ -56,4 +80,15 @@ public class SlimevoidLib {
     public static void SlimevoidLibPostInit(FMLPostInitializationEvent event) {
         JSONLoader.loadJSON();
     }
+
+    @EventHandler
+    public static void SlimevoidLibServerStarting(FMLServerStartingEvent event) {
+        event.registerServerCommand(new CommandPacketStatistics());
+        event.registerServerCommand(new CommandPacketCapture());
+    }
+
+    @EventHandler
+    public static void SlimevoidLibServerStopping(FMLServerStoppingEvent event) {
+        PacketRecorder.stop();
+    }
 }
@@ -8,11 +8,229 @@ public class ConfigurationLib {
 
     private static Configuration configuration;
 
+    public static final String CATEGORY_NETWORK = "network";
+
+    /**
+     * Upper bound in bytes for a single batched packet, further queued
+     * packets are sent in another batch
+     */
+    public static int maxBatchBytes = 32000;
+
+    /**
+     * Most queued packets executed per tick on each side
+     */
+    public static int maxQueuedPacketsPerTick = 1000;
+
+    /**
+     * Most time in milliseconds spent executing queued packets per tick
+     */
+    public static int maxQueuedPacketMillis = 10;
+
+    /**
+     * Most packets waiting for the main thread on each side, further packets
+     * are dropped
+     */
+    public static int maxQueuedPackets = 10000;
+
+    /**
+     * Packets a player may send in a burst per channel and packet id
+     */
+    public static int rateLimitBurst = 200;
+
+    /**
+     * Packets per second a player's allowance refills at, 0 disables limiting
+     */
+    public static int rateLimitPerSecond = 100;
+
+    /**
+     * Whether packets over the limit are deferred rather than dropped
+     */
+    public static boolean rateLimitDefer = true;
+
+    /**
+     * Most deferred packets held per player and channel, further packets
+     * over the limit are dropped
+     */
+    public static int maxDeferredPackets = 100;
+
+    /**
+     * Largest encoded packet with a payload sent whole, larger packets are
+     * fragmented, 0 disables fragmentation
+     */
+    public static int maxFragmentBytes = 30000;
+
+    /**
+     * Fragment bytes sent per player and tick, other packets are not held back
+     */
+    public static int maxFragmentBytesPerTick = 64000;
+
+    /**
+     * Queued bytes sent per player and tick apart from high priority packets,
+     * 0 sends everything queued
+     */
+    public static int maxSendBytesPerTick = 0;
+
+    /**
+     * Largest message accepted from fragments
+     */
+    public static int maxReassemblyBytes = 4194304;
+
+    /**
+     * Most unfinished fragmented transfers held per sender
+     */
+    public static int maxPendingTransfers = 4;
+
+    /**
+     * Most bytes of unfinished fragmented transfers held per sender
+     */
+    public static int maxPendingReassemblyBytes = 8388608;
+
+    /**
+     * Seconds a fragmented transfer may wait for its next fragment
+     */
+    public static int reassemblyTimeoutSeconds = 30;
+
+    /**
+     * Deflate level of compressed payloads, from 1 for fastest to 9 for
+     * smallest
+     */
+    public static int compressionLevel = 6;
+
+    /**
+     * Deltas sent between full keyframes for delta synced packets
+     */
+    public static int deltaKeyframeInterval = 20;
+
+    /**
+     * Whether packets between the client and its integrated server are handed
+     * over in memory instead of being encoded
+     */
+    public static boolean loopback = false;
+
+    /**
+     * Seconds a request may wait for its reply before it fails
+     */
+    public static int requestTimeoutSeconds = 30;
+
+    /**
+     * Requests each player may have executing at once per channel
+     */
+    public static int maxRequestsInFlight = 8;
+
+    /**
+     * Bits per coordinate of hit vectors sent in packets, 8 or 16, 0 sends
+     * them as floats
+     */
+    public static int hitVectorBits = 0;
+
+    /**
+     * Whether per packet id traffic and timings are recorded
+     */
+    public static boolean packetStatistics = false;
+
+    /**
+     * Seconds between appending packet statistics to the CSV log, 0 disables
+     */
+    public static int packetStatisticsDumpSeconds = 0;
+
     public static void preInit(File configFile) {
         configuration = new Configuration(configFile);
 
         configuration.load();
 
+        maxBatchBytes = configuration.get(CATEGORY_NETWORK,
+                "maxBatchBytes",
+                maxBatchBytes,
+                "Largest size in bytes of a batched packet sent at the end of a tick").getInt();
+        maxQueuedPacketsPerTick = configuration.get(CATEGORY_NETWORK,
+                "maxQueuedPacketsPerTick",
+                maxQueuedPacketsPerTick,
+                "Most queued packets executed on the main thread per tick, the rest carry over").getInt();
+        maxQueuedPacketMillis = configuration.get(CATEGORY_NETWORK,
+                "maxQueuedPacketMillis",
+                maxQueuedPacketMillis,
+                "Most milliseconds spent executing queued packets per tick, the rest carry over").getInt();
+        maxQueuedPackets = configuration.get(CATEGORY_NETWORK,
+                "maxQueuedPackets",
+                maxQueuedPackets,
+                "Most packets waiting for the main thread on each side before dropping").getInt();
+        rateLimitBurst = configuration.get(CATEGORY_NETWORK,
+                "rateLimitBurst",
+                rateLimitBurst,
+                "Packets a client may send in a burst per channel and packet id").getInt();
+        rateLimitPerSecond = configuration.get(CATEGORY_NETWORK,
+                "rateLimitPerSecond",
+                rateLimitPerSecond,
+                "Packets per second a client's allowance refills at, 0 disables rate limiting").getInt();
+        rateLimitDefer = configuration.get(CATEGORY_NETWORK,
+                "rateLimitDefer",
+                rateLimitDefer,
+                "Defer packets over the rate limit to later ticks instead of dropping them").getBoolean();
+        maxDeferredPackets = configuration.get(CATEGORY_NETWORK,
+                "maxDeferredPackets",
+                maxDeferredPackets,
+                "Most deferred packets held per client and channel before dropping").getInt();
+        maxFragmentBytes = configuration.get(CATEGORY_NETWORK,
+                "maxFragmentBytes",
+                maxFragmentBytes,
+                "Largest packet with a payload sent whole, larger packets are split into fragments, 0 disables").getInt();
+        maxFragmentBytesPerTick = configuration.get(CATEGORY_NETWORK,
+                "maxFragmentBytesPerTick",
+                maxFragmentBytesPerTick,
+                "Fragment bytes sent to each client per tick, the rest carry over").getInt();
+        maxSendBytesPerTick = configuration.get(CATEGORY_NETWORK,
+                "maxSendBytesPerTick",
+                maxSendBytesPerTick,
+                "Queued bytes sent to each client per tick besides GUI and player packets, 0 sends everything").getInt();
+        maxReassemblyBytes = configuration.get(CATEGORY_NETWORK,
+                "maxReassemblyBytes",
+                maxReassemblyBytes,
+                "Largest packet accepted when reassembling fragments").getInt();
+        maxPendingTransfers = configuration.get(CATEGORY_NETWORK,
+                "maxPendingTransfers",
+                maxPendingTransfers,
+                "Most unfinished fragmented packets held per sender").getInt();
+        maxPendingReassemblyBytes = configuration.get(CATEGORY_NETWORK,
+                "maxPendingReassemblyBytes",
+                maxPendingReassemblyBytes,
+                "Most bytes of unfinished fragmented packets held per sender").getInt();
+        reassemblyTimeoutSeconds = configuration.get(CATEGORY_NETWORK,
+                "reassemblyTimeoutSeconds",
+                reassemblyTimeoutSeconds,
+                "Seconds a fragmented packet may wait for its next fragment before being discarded, 0 never").getInt();
+        compressionLevel = configuration.get(CATEGORY_NETWORK,
+                "compressionLevel",
+                compressionLevel,
+                "Deflate level for channels that compress payloads, 1 is fastest and 9 smallest").getInt();
+        deltaKeyframeInterval = configuration.get(CATEGORY_NETWORK,
+                "deltaKeyframeInterval",
+                deltaKeyframeInterval,
+                "Deltas sent between full keyframes for delta synced packets, 0 always sends keyframes").getInt();
+        loopback = configuration.get(CATEGORY_NETWORK,
+                "loopback",
+                loopback,
+                "Hand packets between the client and its integrated server over in memory instead of encoding them").getBoolean();
+        requestTimeoutSeconds = configuration.get(CATEGORY_NETWORK,
+                "requestTimeoutSeconds",
+                requestTimeoutSeconds,
+                "Seconds a request waits for its reply before failing").getInt();
+        maxRequestsInFlight = configuration.get(CATEGORY_NETWORK,
+                "maxRequestsInFlight",
+                maxRequestsInFlight,
+                "Requests each client may have executing at once per channel, 0 is unlimited").getInt();
+        hitVectorBits = configuration.get(CATEGORY_NETWORK,
+                "hitVectorBits",
+                hitVectorBits,
+                "Bits per coordinate of hit vectors sent in packets, 8 or 16, 0 sends exact floats. Sixteenths stay exact, finer values are rounded").getInt();
+        packetStatistics = configuration.get(CATEGORY_NETWORK,
+                "packetStatistics",
+                packetStatistics,
+                "Record packet counts, bytes and timings per channel and packet id").getBoolean();
+        packetStatisticsDumpSeconds = configuration.get(CATEGORY_NETWORK,
+                "packetStatisticsDumpSeconds",
+                packetStatisticsDumpSeconds,
+                "Seconds between writing packet statistics to logs/packetstats.csv, 0 disables").getInt();
+
         configuration.save();
     }
 
@@ -0,0 +1,139 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.slimevoid.library.core.lib.CoreLib;
+import net.slimevoid.library.tileentity.TileEntityBase;
+import net.slimevoid.library.util.helpers.PacketHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sends the description of bulk synced tiles a chunk at a time
+ * <p/>
+ * When a player starts watching a chunk every bulk synced tile in it is sent
+ * in one {@link PacketChunkTiles}. Tiles that change are collected per chunk
+ * during the tick and sent to the chunk's watchers together at the end of
+ * it. Runs on the server thread only.
+ *
+ * @see TileEntityBase#isBulkSynced()
+ */
+public class ChunkTileSync {
+
+    /**
+     * Changed tiles per world and chunk, cleared at the end of each tick
+     */
+    private static final Map<World, Map<Long, Set<TileEntityBase>>> dirty = Maps.newHashMap();
+
+    /**
+     * Queues a changed tile to be sent to the players watching its chunk
+     *
+     * @param tile the tile
+     */
+    public static void markDirty(TileEntityBase tile) {
+        World world = tile.getWorld();
+        if (world == null || world.isRemote) return;
+        Map<Long, Set<TileEntityBase>> chunks = dirty.get(world);
+        if (chunks == null) {
+            chunks = Maps.newHashMap();
+            dirty.put(world,
+                    chunks);
+        }
+        long key = ChunkCoordIntPair.chunkXZ2Int(tile.getPos().getX() >> 4,
+                tile.getPos().getZ() >> 4);
+        Set<TileEntityBase> tiles = chunks.get(key);
+        if (tiles == null) {
+            tiles = Sets.newLinkedHashSet();
+            chunks.put(key,
+                    tiles);
+        }
+        tiles.add(tile);
+    }
+
+    /**
+     * Sends the tiles changed since the last call
+     * <p/>
+     * Called at the end of each server tick
+     */
+    public static void flush() {
+        if (dirty.isEmpty()) return;
+        PacketChannel channel = getChannel();
+        for (Map.Entry<World, Map<Long, Set<TileEntityBase>>> world : dirty.entrySet()) {
+            int dimension = world.getKey().provider.getDimensionId();
+            for (Set<TileEntityBase> tiles : world.getValue().values()) {
+                List<TileEntityBase> valid = new ArrayList<TileEntityBase>(tiles.size());
+                for (TileEntityBase tile : tiles) {
+                    if (!tile.isInvalid() && tile.getWorld() == world.getKey()) {
+                        valid.add(tile);
+                    }
+                }
+                if (valid.isEmpty() || channel == null) continue;
+                int chunkX = valid.get(0).getPos().getX() >> 4;
+                int chunkZ = valid.get(0).getPos().getZ() >> 4;
+                List<EntityPlayerMP> watchers = ChunkWatcherRegistry.getWatchers(dimension,
+                        chunkX,
+                        chunkZ);
+                if (!watchers.isEmpty()) {
+                    channel.sendToPlayers(new PacketChunkTiles(chunkX, chunkZ, valid),
+                            watchers);
+                }
+            }
+        }
+        dirty.clear();
+    }
+
+    /**
+     * Sends every bulk synced tile of a chunk to a player who started
+     * watching it
+     *
+     * @param entityplayer the player
+     * @param chunkCoords  the chunk
+     */
+    public static void sendChunk(EntityPlayerMP entityplayer, ChunkCoordIntPair chunkCoords) {
+        PacketChannel channel = getChannel();
+        if (channel == null) return;
+        World world = entityplayer.worldObj;
+        if (!world.getChunkProvider().chunkExists(chunkCoords.chunkXPos,
+                chunkCoords.chunkZPos)) return;
+        Chunk chunk = world.getChunkFromChunkCoords(chunkCoords.chunkXPos,
+                chunkCoords.chunkZPos);
+        List<TileEntityBase> tiles = null;
+        for (Object value : chunk.getTileEntityMap().values()) {
+            TileEntity tile = (TileEntity) value;
+            if (tile instanceof TileEntityBase && ((TileEntityBase) tile).isBulkSynced() && !tile.isInvalid()) {
+                if (tiles == null) {
+                    tiles = new ArrayList<TileEntityBase>();
+                }
+                tiles.add((TileEntityBase) tile);
+            }
+        }
+        if (tiles != null) {
+            channel.sendToPlayers(new PacketChunkTiles(chunkCoords.chunkXPos, chunkCoords.chunkZPos, tiles),
+                    Collections.singletonList(entityplayer));
+        }
+    }
+
+    private static PacketChannel getChannel() {
+        return PacketHelper.getChannel(CoreLib.MOD_ID);
+    }
+}
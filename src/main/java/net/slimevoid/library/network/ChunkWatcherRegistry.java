@@ -0,0 +1,159 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.world.ChunkCoordIntPair;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps track of which players are watching which chunks
+ * <p/>
+ * Maintained from the chunk watch and unwatch events so that packets can be
+ * targeted at exactly the players tracking a chunk without testing every
+ * player in the dimension. The watcher list of each chunk is cached until the
+ * next watch or unwatch of that chunk.
+ *
+ * @see net.slimevoid.library.network.handlers.ChunkWatchHandler
+ */
+public class ChunkWatcherRegistry {
+
+    private static final Map<Integer, Map<Long, ChunkWatchers>> dimensions = Maps.newConcurrentMap();
+
+    /**
+     * The chunks each player is watching and the dimension they were watched
+     * in, keyed by id since respawning replaces the player entity
+     */
+    private static final Map<UUID, Map<Long, Integer>> players = Maps.newConcurrentMap();
+
+    /**
+     * Retrieves the players watching a chunk
+     *
+     * @param dimension the dimension id
+     * @param chunkX    the chunk x coordinate
+     * @param chunkZ    the chunk z coordinate
+     * @return an unmodifiable list of watching players
+     */
+    public static List<EntityPlayerMP> getWatchers(int dimension, int chunkX, int chunkZ) {
+        Map<Long, ChunkWatchers> chunks = dimensions.get(dimension);
+        if (chunks == null) return Collections.emptyList();
+        ChunkWatchers watchers = chunks.get(ChunkCoordIntPair.chunkXZ2Int(chunkX,
+                chunkZ));
+        return watchers != null ? watchers.getWatchers() : Collections.<EntityPlayerMP>emptyList();
+    }
+
+    public static void watch(EntityPlayerMP entityplayer, ChunkCoordIntPair chunk) {
+        long key = ChunkCoordIntPair.chunkXZ2Int(chunk.chunkXPos,
+                chunk.chunkZPos);
+        int dimension = entityplayer.dimension;
+        Map<Long, ChunkWatchers> chunks = dimensions.get(dimension);
+        if (chunks == null) {
+            chunks = Maps.newConcurrentMap();
+            dimensions.put(dimension,
+                    chunks);
+        }
+        ChunkWatchers watchers = chunks.get(key);
+        if (watchers == null) {
+            watchers = new ChunkWatchers();
+            chunks.put(key,
+                    watchers);
+        }
+        watchers.add(entityplayer);
+
+        Map<Long, Integer> watched = players.get(entityplayer.getUniqueID());
+        if (watched == null) {
+            watched = Maps.newConcurrentMap();
+            players.put(entityplayer.getUniqueID(),
+                    watched);
+        }
+        watched.put(key,
+                dimension);
+    }
+
+    public static void unwatch(EntityPlayerMP entityplayer, ChunkCoordIntPair chunk) {
+        long key = ChunkCoordIntPair.chunkXZ2Int(chunk.chunkXPos,
+                chunk.chunkZPos);
+        UUID uuid = entityplayer.getUniqueID();
+        Map<Long, Integer> watched = players.get(uuid);
+        // The player may have changed dimension already so use the one recorded
+        Integer dimension = watched != null ? watched.remove(key) : null;
+        if (watched != null && watched.isEmpty()) {
+            players.remove(uuid);
+        }
+        removeWatcher(entityplayer,
+                dimension != null ? dimension : entityplayer.dimension,
+                key);
+    }
+
+    /**
+     * Removes a player from every chunk they were watching
+     *
+     * @param entityplayer the player leaving
+     */
+    public static void removePlayer(EntityPlayerMP entityplayer) {
+        Map<Long, Integer> watched = players.remove(entityplayer.getUniqueID());
+        if (watched == null) return;
+        for (Map.Entry<Long, Integer> entry : watched.entrySet()) {
+            removeWatcher(entityplayer,
+                    entry.getValue(),
+                    entry.getKey());
+        }
+    }
+
+    private static void removeWatcher(EntityPlayerMP entityplayer, int dimension, long key) {
+        Map<Long, ChunkWatchers> chunks = dimensions.get(dimension);
+        if (chunks == null) return;
+        ChunkWatchers watchers = chunks.get(key);
+        if (watchers != null && watchers.remove(entityplayer)) {
+            chunks.remove(key);
+        }
+    }
+
+    /**
+     * The players watching a single chunk, a respawned player replaces the
+     * entity it had before
+     */
+    private static class ChunkWatchers {
+        private final Map<UUID, EntityPlayerMP> watchers = Maps.newLinkedHashMap();
+        private List<EntityPlayerMP> cache;
+
+        synchronized void add(EntityPlayerMP entityplayer) {
+            if (this.watchers.put(entityplayer.getUniqueID(),
+                    entityplayer) != entityplayer) {
+                this.cache = null;
+            }
+        }
+
+        /**
+         * @return true if no players are left watching
+         */
+        synchronized boolean remove(EntityPlayerMP entityplayer) {
+            if (this.watchers.remove(entityplayer.getUniqueID()) != null) {
+                this.cache = null;
+            }
+            return this.watchers.isEmpty();
+        }
+
+        synchronized List<EntityPlayerMP> getWatchers() {
+            if (this.cache == null) {
+                this.cache = ImmutableList.copyOf(this.watchers.values());
+            }
+            return this.cache;
+        }
+    }
+}
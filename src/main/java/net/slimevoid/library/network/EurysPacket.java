@@ -2,6 +2,8 @@ package net.slimevoid.library.network;
 
 import io.netty.buffer.ByteBuf;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+import net.slimevoid.library.util.helpers.PacketHelper;
 
 /**
  * Packet Information Base
@@ -64,7 +66,17 @@ public abstract class EurysPacket implements IMessage {
 
     @Override
     public void toBytes(ByteBuf buffer) {
+        PacketStatistics statistics = this.getStatistics();
+        if (statistics == null) {
+            this.writeData(buffer);
+            return;
+        }
+        int start = buffer.writerIndex();
+        long time = System.nanoTime();
         this.writeData(buffer);
+        statistics.recordEncode(this.getPacketId(),
+                buffer.writerIndex() - start,
+                System.nanoTime() - time);
     }
 
     /**
@@ -76,7 +88,28 @@ public abstract class EurysPacket implements IMessage {
 
     @Override
     public void fromBytes(ByteBuf buffer) {
+        PacketStatistics statistics = this.getStatistics();
+        int start = buffer.readerIndex();
+        long time = statistics != null ? System.nanoTime() : 0L;
         this.readData(buffer);
+        if (statistics != null) {
+            statistics.recordDecode(this.getPacketId(),
+                    buffer.readerIndex() - start,
+                    System.nanoTime() - time);
+        }
+    }
+
+    /**
+     * Retrieves the statistics of the packet's channel
+     *
+     * @return the statistics or null if not recorded
+     */
+    protected PacketStatistics getStatistics() {
+        if (!ConfigurationLib.packetStatistics || this.channel == null) {
+            return null;
+        }
+        PacketChannel channel = PacketHelper.getChannel(this.channel);
+        return channel != null ? channel.getStatistics() : null;
     }
 
     /**
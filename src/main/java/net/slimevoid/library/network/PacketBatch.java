@@ -0,0 +1,65 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+
+/**
+ * Framed multi-message packet used to coalesce queued packets
+ * <p/>
+ * Each frame is the discriminator of the wrapped message as a byte, the
+ * length of its data as a varint and the encoded message itself. Frames
+ * follow one another until the end of the packet.
+ *
+ * @see PacketChannel#flush()
+ */
+public class PacketBatch implements IMessage {
+
+    /**
+     * The encoded frames
+     */
+    private ByteBuf frames;
+
+    public PacketBatch() {
+    }
+
+    public PacketBatch(ByteBuf frames) {
+        this.frames = frames;
+    }
+
+    /**
+     * Retrieves the encoded frames
+     *
+     * @return the frames, only valid while the batch is handled
+     */
+    public ByteBuf getFrames() {
+        return this.frames;
+    }
+
+    @Override
+    public void toBytes(ByteBuf buffer) {
+        buffer.writeBytes(this.frames,
+                this.frames.readerIndex(),
+                this.frames.readableBytes());
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buffer) {
+        this.frames = buffer.readSlice(buffer.readableBytes());
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,1018 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.NetHandlerPlayServer;
+import net.minecraft.network.NetworkManager;
+import net.minecraft.network.Packet;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.fml.common.network.FMLEmbeddedChannel;
+import net.minecraftforge.fml.common.network.FMLOutboundHandler;
+import net.minecraftforge.fml.common.network.NetworkRegistry;
+import net.minecraftforge.fml.common.network.NetworkRegistry.TargetPoint;
+import net.minecraftforge.fml.common.network.internal.FMLProxyPacket;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.common.network.simpleimpl.SimpleIndexedCodec;
+import net.minecraftforge.fml.common.network.simpleimpl.SimpleNetworkWrapper;
+import net.minecraftforge.fml.relauncher.Side;
+import net.slimevoid.library.core.SlimevoidCore;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+import net.slimevoid.library.core.lib.CoreLib;
+import net.slimevoid.library.network.executor.PacketBatchExecutor;
+import net.slimevoid.library.network.executor.PacketCommandTableExecutor;
+import net.slimevoid.library.network.executor.PacketDeltaResyncExecutor;
+import net.slimevoid.library.network.executor.PacketFragmentExecutor;
+import net.slimevoid.library.network.executor.PacketRequestFailureExecutor;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A mod channel and the messages registered on it
+ * <p/>
+ * Wraps the {@link SimpleNetworkWrapper} for the channel and keeps track of
+ * the registered message types and executors so that the library can frame
+ * and unpack messages itself. When batching is enabled packets sent to
+ * players are queued per player and flushed as a single {@link PacketBatch}
+ * at the end of the server tick. Packets for several players are encoded
+ * once and the bytes shared between the queues. Packets with a payload that
+ * encode larger than the configured limit are split into
+ * {@link PacketFragment}s, which are queued in the bulk lane and sent a few
+ * per tick alongside other traffic. Queued frames are sent by
+ * {@link PacketPriority}, so GUI and player packets are not held up behind
+ * tile sync bursts. Packets between the client and its integrated server
+ * skip the network through {@link PacketLoopback}. Clients can send requests
+ * that the server answers asynchronously through {@link #sendRequest}.
+ */
+public class PacketChannel {
+
+    /**
+     * Discriminator reserved on every library channel for {@link PacketBatch}
+     */
+    public static final int BATCH_DISCRIMINATOR = 255;
+
+    /**
+     * Discriminator reserved on every library channel for {@link PacketCommandTable}
+     */
+    public static final int COMMAND_TABLE_DISCRIMINATOR = 254;
+
+    /**
+     * Discriminator reserved on every library channel for {@link PacketFragment}
+     */
+    public static final int FRAGMENT_DISCRIMINATOR = 253;
+
+    /**
+     * Discriminator reserved on every library channel for {@link PacketRequestFailure}
+     */
+    public static final int REQUEST_FAILURE_DISCRIMINATOR = 252;
+
+    /**
+     * Discriminator reserved on every library channel for {@link PacketDeltaResync}
+     */
+    public static final int DELTA_RESYNC_DISCRIMINATOR = 251;
+
+    /**
+     * Discriminators from this value up are reserved for the library
+     */
+    public static final int FIRST_RESERVED_DISCRIMINATOR = DELTA_RESYNC_DISCRIMINATOR;
+
+    /**
+     * Space left in front of an encoded message for its frame header, the
+     * discriminator byte and a varint length of up to three bytes
+     */
+    private static final int FRAME_HEADER = 4;
+
+    private final String name;
+
+    private final SimpleNetworkWrapper wrapper;
+
+    private final Map<Class<? extends IMessage>, Integer> discriminators = Maps.newConcurrentMap();
+    private final Map<Integer, Class<? extends IMessage>> messages = Maps.newConcurrentMap();
+    private final Map<Integer, IMessageHandler> clientExecutors = Maps.newConcurrentMap();
+    private final Map<Integer, IMessageHandler> serverExecutors = Maps.newConcurrentMap();
+
+    /**
+     * Frames waiting for each connection, keyed by the handler since it
+     * outlives the player entity across respawns and dimension changes
+     */
+    private final ConcurrentMap<NetHandlerPlayServer, PacketOutboundQueue> outbound = Maps.newConcurrentMap();
+
+    private volatile boolean batching = false;
+
+    /**
+     * Commands registered locally, authoritative when acting as the server
+     */
+    private final PacketCommandDictionary commands = new PacketCommandDictionary();
+
+    /**
+     * Commands received from the server, null until synced
+     */
+    private volatile PacketCommandDictionary remoteCommands;
+
+    private final PacketRateLimiter rateLimiter = new PacketRateLimiter();
+
+    private final PacketStatistics statistics;
+
+    private final PacketReassembler reassembler = new PacketReassembler(this);
+
+    private final PacketCompressor compressor = new PacketCompressor();
+
+    private final PacketDeltaTracker deltaTracker = new PacketDeltaTracker();
+
+    private final PacketRequestTracker requestTracker = new PacketRequestTracker(this);
+
+    private final AtomicInteger nextTransferId = new AtomicInteger();
+
+    public PacketChannel(String name) {
+        this.name = name;
+        this.statistics = new PacketStatistics(name);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this.statistics,
+                    new ObjectName(CoreLib.MOD_ID + ":type=PacketStatistics,channel=" + ObjectName.quote(name)));
+        } catch (JMException e) {
+            SlimevoidCore.console(CoreLib.MOD_ID,
+                    "Unable to register packet statistics for channel " + name + ": " + e.getMessage(),
+                    1);
+        }
+        this.wrapper = NetworkRegistry.INSTANCE.newSimpleChannel(name);
+        this.installCodec();
+        PacketBatchExecutor batchExecutor = new PacketBatchExecutor(this);
+        this.wrapper.registerMessage(batchExecutor,
+                PacketBatch.class,
+                BATCH_DISCRIMINATOR,
+                Side.CLIENT);
+        // Clients frame packets with a payload to avoid encoding them twice
+        this.wrapper.registerMessage(batchExecutor,
+                PacketBatch.class,
+                BATCH_DISCRIMINATOR,
+                Side.SERVER);
+        this.wrapper.registerMessage(new PacketCommandTableExecutor(this),
+                PacketCommandTable.class,
+                COMMAND_TABLE_DISCRIMINATOR,
+                Side.CLIENT);
+        PacketFragmentExecutor fragmentExecutor = new PacketFragmentExecutor(this);
+        for (Side side : Side.values()) {
+            this.wrapper.registerMessage(fragmentExecutor,
+                    PacketFragment.class,
+                    FRAGMENT_DISCRIMINATOR,
+                    side);
+        }
+        this.discriminators.put(PacketFragment.class,
+                FRAGMENT_DISCRIMINATOR);
+        // Fragments also arrive framed inside batches
+        this.messages.put(FRAGMENT_DISCRIMINATOR,
+                PacketFragment.class);
+        this.clientExecutors.put(FRAGMENT_DISCRIMINATOR,
+                fragmentExecutor);
+        this.serverExecutors.put(FRAGMENT_DISCRIMINATOR,
+                fragmentExecutor);
+        PacketRequestFailureExecutor failureExecutor = new PacketRequestFailureExecutor(this);
+        this.wrapper.registerMessage(failureExecutor,
+                PacketRequestFailure.class,
+                REQUEST_FAILURE_DISCRIMINATOR,
+                Side.CLIENT);
+        this.discriminators.put(PacketRequestFailure.class,
+                REQUEST_FAILURE_DISCRIMINATOR);
+        this.messages.put(REQUEST_FAILURE_DISCRIMINATOR,
+                PacketRequestFailure.class);
+        this.clientExecutors.put(REQUEST_FAILURE_DISCRIMINATOR,
+                failureExecutor);
+        PacketDeltaResyncExecutor resyncExecutor = new PacketDeltaResyncExecutor(this);
+        this.wrapper.registerMessage(resyncExecutor,
+                PacketDeltaResync.class,
+                DELTA_RESYNC_DISCRIMINATOR,
+                Side.SERVER);
+        this.discriminators.put(PacketDeltaResync.class,
+                DELTA_RESYNC_DISCRIMINATOR);
+        this.messages.put(DELTA_RESYNC_DISCRIMINATOR,
+                PacketDeltaResync.class);
+        this.serverExecutors.put(DELTA_RESYNC_DISCRIMINATOR,
+                resyncExecutor);
+    }
+
+    /**
+     * Replaces the codec of the wrapper with a {@link PacketChannelCodec},
+     * before any message is registered so that it holds every discriminator
+     */
+    private void installCodec() {
+        PacketChannelCodec codec = new PacketChannelCodec(this.name);
+        try {
+            Field field = SimpleNetworkWrapper.class.getDeclaredField("packetCodec");
+            field.setAccessible(true);
+            field.set(this.wrapper,
+                    codec);
+        } catch (Exception e) {
+            SlimevoidCore.console(CoreLib.MOD_ID,
+                    "Unable to install the codec of channel " + this.name
+                            + ", packets must set their channel when created: " + e.getMessage(),
+                    1);
+            return;
+        }
+        for (Side side : Side.values()) {
+            FMLEmbeddedChannel channel = NetworkRegistry.INSTANCE.getChannel(this.name,
+                    side);
+            String handlerName = channel.findChannelHandlerNameForType(SimpleIndexedCodec.class);
+            channel.pipeline().replace(handlerName,
+                    handlerName,
+                    codec);
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public SimpleNetworkWrapper getWrapper() {
+        return this.wrapper;
+    }
+
+    /**
+     * Registers a message type and the executor handling it on the given side
+     *
+     * @param executor      the executor class, instantiated once
+     * @param packet        the message class
+     * @param discriminator the index of the message on this channel
+     * @param side          the side receiving the message
+     */
+    @SuppressWarnings("unchecked")
+    public void registerExecutor(Class executor, Class packet, int discriminator, Side side) {
+        if (discriminator >= FIRST_RESERVED_DISCRIMINATOR) {
+            throw new RuntimeException("Packet index " + discriminator
+                    + " is reserved on channel " + this.name);
+        }
+        IMessageHandler handler;
+        try {
+            handler = (IMessageHandler) executor.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to create executor " + executor.getName(), e);
+        }
+        if (PacketUpdate.class.isAssignableFrom(packet)) {
+            // Build the field codec up front rather than on the first packet
+            PacketFieldCodec.forClass(packet);
+        }
+        this.wrapper.registerMessage(handler,
+                packet,
+                discriminator,
+                side);
+        this.discriminators.put(packet,
+                discriminator);
+        this.messages.put(discriminator,
+                packet);
+        (side == Side.CLIENT ? this.clientExecutors : this.serverExecutors).put(discriminator,
+                handler);
+    }
+
+    /**
+     * Retrieves the index a message type is registered with
+     *
+     * @return the discriminator or null if not registered
+     */
+    public Integer getDiscriminator(Class<? extends IMessage> type) {
+        return this.discriminators.get(type);
+    }
+
+    /**
+     * Retrieves the message type registered with an index
+     *
+     * @return the type or null if not registered
+     */
+    public Class<? extends IMessage> getMessageType(int discriminator) {
+        return this.messages.get(discriminator);
+    }
+
+    /**
+     * Retrieves the executor registered for an index on a side
+     *
+     * @return the executor or null if not registered
+     */
+    public IMessageHandler getExecutor(int discriminator, Side side) {
+        return (side == Side.CLIENT ? this.clientExecutors : this.serverExecutors).get(discriminator);
+    }
+
+    /**
+     * Registers a command so that it is sent as an id
+     *
+     * @param command the command
+     * @return the id of the command
+     */
+    public int registerCommand(String command) {
+        return this.commands.register(command);
+    }
+
+    /**
+     * Retrieves the locally registered commands
+     */
+    public PacketCommandDictionary getCommands() {
+        return this.commands;
+    }
+
+    /**
+     * Retrieves the dictionary used to decode incoming command ids
+     *
+     * @return the server's dictionary once synced, otherwise the local one
+     */
+    public PacketCommandDictionary getInboundCommands() {
+        PacketCommandDictionary remoteCommands = this.remoteCommands;
+        return remoteCommands != null ? remoteCommands : this.commands;
+    }
+
+    /**
+     * Sets the dictionary received from the server, null when disconnected
+     */
+    public void setRemoteCommands(PacketCommandDictionary remoteCommands) {
+        this.remoteCommands = remoteCommands;
+    }
+
+    /**
+     * Sends the local command dictionary to a player who has just logged in
+     *
+     * @param entityplayer the player
+     */
+    public void sendCommandTable(EntityPlayerMP entityplayer) {
+        if (this.commands.size() > 0) {
+            this.wrapper.sendTo(new PacketCommandTable(this.commands),
+                    entityplayer);
+        }
+    }
+
+    /**
+     * Retrieves the limiter for packets players send on this channel
+     */
+    public PacketRateLimiter getRateLimiter() {
+        return this.rateLimiter;
+    }
+
+    /**
+     * Retrieves the traffic counters of this channel
+     */
+    public PacketStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Retrieves the compression stage for payloads sent on this channel
+     */
+    public PacketCompressor getCompressor() {
+        return this.compressor;
+    }
+
+    /**
+     * Asks the server for keyframes after a delta could not be applied
+     */
+    public void requestResync() {
+        if (this.deltaTracker.tryResync()) {
+            this.wrapper.sendToServer(new PacketDeltaResync());
+        }
+    }
+
+    /**
+     * Retrieves the payloads sent and received for delta sync
+     */
+    public PacketDeltaTracker getDeltaTracker() {
+        return this.deltaTracker;
+    }
+
+    /**
+     * Retrieves the requests awaiting a reply on this channel
+     */
+    public PacketRequestTracker getRequestTracker() {
+        return this.requestTracker;
+    }
+
+    /**
+     * Retrieves the reassembler for fragments received on this channel
+     */
+    public PacketReassembler getReassembler() {
+        return this.reassembler;
+    }
+
+    /**
+     * Discards the state held for a player who logged out
+     *
+     * @param entityplayer the player
+     */
+    public void removePlayer(EntityPlayerMP entityplayer) {
+        this.rateLimiter.removePlayer(entityplayer);
+        this.reassembler.removePlayer(entityplayer);
+        this.deltaTracker.removePlayer(entityplayer);
+        this.requestTracker.removePlayer(entityplayer);
+        PacketOutboundQueue queue = entityplayer.playerNetServerHandler != null ? this.outbound.remove(entityplayer.playerNetServerHandler) : null;
+        if (queue != null) {
+            queue.release();
+        }
+    }
+
+    /**
+     * Discards the state held for the server once disconnected from it
+     */
+    public void disconnect() {
+        this.setRemoteCommands(null);
+        this.reassembler.removePlayer(null);
+        this.deltaTracker.clearReceived();
+        this.requestTracker.disconnect();
+    }
+
+    public boolean isBatching() {
+        return this.batching;
+    }
+
+    /**
+     * Sets whether packets sent to players are coalesced until the end of
+     * the tick, disabling batching sends anything already queued
+     *
+     * @param batching true to queue outgoing packets
+     */
+    public void setBatching(boolean batching) {
+        this.batching = batching;
+        if (!batching) {
+            this.flush();
+        }
+    }
+
+    public void sendTo(IMessage message, EntityPlayerMP entityplayer) {
+        if (this.canLoopback(message) && PacketLoopback.isLocal(entityplayer)
+                && PacketLoopback.toClient(this.clientExecutors.get(this.discriminators.get(message.getClass())),
+                (PacketUpdate) message)) {
+            return;
+        }
+        this.prepare(message,
+                this.commands);
+        if (this.canFragment(message)) {
+            this.sendToPlayers(message,
+                    Collections.singletonList(entityplayer));
+        } else if (this.canQueue(message)) {
+            this.queue(this.encodeFrame(message),
+                    getPriority(message),
+                    entityplayer);
+        } else {
+            this.wrapper.sendTo(message,
+                    entityplayer);
+        }
+    }
+
+    public void sendToServer(IMessage message) {
+        if (this.canLoopback(message) && PacketLoopback.isLocalServer()
+                && PacketLoopback.toServer(this.serverExecutors.get(this.discriminators.get(message.getClass())),
+                (PacketUpdate) message)) {
+            return;
+        }
+        // Ids are only used once the server's dictionary is known
+        this.prepare(message,
+                this.remoteCommands);
+        if (!this.canFragment(message)) {
+            this.wrapper.sendToServer(message);
+            return;
+        }
+        int discriminator = this.discriminators.get(message.getClass());
+        ByteBuf data = this.encode(message);
+        if (data.readableBytes() <= ConfigurationLib.maxFragmentBytes) {
+            // Already encoded, so send it as the wrapper would rather than encode again
+            FMLEmbeddedChannel channel = NetworkRegistry.INSTANCE.getChannel(this.name,
+                    Side.CLIENT);
+            channel.attr(FMLOutboundHandler.FML_MESSAGETARGET).set(FMLOutboundHandler.OutboundTarget.TOSERVER);
+            channel.writeAndFlush(this.toPacket(data,
+                    discriminator)).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+            return;
+        }
+        // Fragments to the server are not paced, the server bounds what it
+        // buffers per player instead
+        try {
+            int transferId = this.nextTransferId.getAndIncrement() & Integer.MAX_VALUE;
+            int length = data.readableBytes();
+            for (int index = 0; data.isReadable(); index++) {
+                int size = Math.min(data.readableBytes(),
+                        ConfigurationLib.maxFragmentBytes);
+                this.wrapper.sendToServer(new PacketFragment(transferId, index, discriminator, length, data.readSlice(size).copy()));
+            }
+        } finally {
+            data.release();
+        }
+    }
+
+    /**
+     * Sends a request to the server and awaits the reply
+     * <p/>
+     * The future is completed on the thread the reply arrives on, it fails
+     * if the server rejects the request, its executor fails or the
+     * configured timeout passes. Replies with a lazy payload must be
+     * released by the caller.
+     *
+     * @param request the request, its executor returns the reply
+     * @return the future completed with the reply
+     */
+    @SuppressWarnings("unchecked")
+    public <REPLY extends PacketUpdate> ListenableFuture<REPLY> sendRequest(PacketUpdate request) {
+        ListenableFuture<PacketUpdate> future = this.requestTracker.begin(request);
+        this.sendToServer(request);
+        return (ListenableFuture<REPLY>) future;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void sendToAll(IMessage message) {
+        this.prepare(message,
+                this.commands);
+        if (this.canQueue(message) || this.canFragment(message) || this.canLoopbackFromServer(message)) {
+            this.sendToPlayers(message,
+                    (List<EntityPlayerMP>) MinecraftServer.getServer().getConfigurationManager().playerEntityList);
+        } else {
+            this.wrapper.sendToAll(message);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void sendToAllAround(IMessage message, TargetPoint point) {
+        this.prepare(message,
+                this.commands);
+        if (this.canQueue(message) || this.canFragment(message) || this.canLoopbackFromServer(message)) {
+            List<EntityPlayerMP> entityplayers = new ArrayList<EntityPlayerMP>();
+            for (EntityPlayerMP entityplayer : (List<EntityPlayerMP>) MinecraftServer.getServer().getConfigurationManager().playerEntityList) {
+                if (isInRange(entityplayer,
+                        point)) {
+                    entityplayers.add(entityplayer);
+                }
+            }
+            this.sendToPlayers(message,
+                    entityplayers);
+        } else {
+            this.wrapper.sendToAllAround(message,
+                    point);
+        }
+    }
+
+    /**
+     * Sends the same message to each of the given players
+     * <p/>
+     * The message is encoded only once. When batching, the encoded frame is
+     * shared read only between the player queues with one reference each,
+     * otherwise the same vanilla packet is handed to every connection.
+     * Payload packets are encoded up front to learn their size, those too
+     * large to send whole are fragmented into the bulk lane of each player's
+     * queue and the rest take the same path as any other message.
+     *
+     * @param message       the message
+     * @param entityplayers the recipients
+     */
+    public void sendToPlayers(IMessage message, Collection<EntityPlayerMP> entityplayers) {
+        entityplayers = this.loopback(message,
+                entityplayers);
+        if (entityplayers.isEmpty()) return;
+        this.prepare(message,
+                this.commands);
+        if (this.canFragment(message)) {
+            int discriminator = this.discriminators.get(message.getClass());
+            ByteBuf data = this.encode(message);
+            if (data.readableBytes() > ConfigurationLib.maxFragmentBytes) {
+                this.queueFragments(discriminator,
+                        data,
+                        entityplayers);
+            } else if (this.canQueue(message)) {
+                this.queue(this.frame(data,
+                                discriminator),
+                        getPriority(message),
+                        entityplayers);
+            } else {
+                // Already encoded, so send it as the wrapper would rather than encode again
+                this.sendPacket(this.toPacket(data,
+                                discriminator),
+                        entityplayers);
+            }
+        } else if (this.canQueue(message)) {
+            this.queue(this.encodeFrame(message),
+                    getPriority(message),
+                    entityplayers);
+        } else {
+            this.sendPacket(this.wrapper.getPacketFrom(message),
+                    entityplayers);
+        }
+    }
+
+    /**
+     * Sends a packet to each of the given players as a delta of the payload
+     * last sent to them for the same {@link PacketUpdate#getDeltaKey()}
+     * <p/>
+     * The packet is encoded for each player. Delta packets are never
+     * fragmented, a client missing the payload a delta was made against
+     * drops it and asks for keyframes.
+     *
+     * @param packet        the packet
+     * @param entityplayers the recipients
+     */
+    public void sendDeltaToPlayers(PacketUpdate packet, Collection<EntityPlayerMP> entityplayers) {
+        Integer discriminator = this.discriminators.get(packet.getClass());
+        if (discriminator == null || packet.payload == null || packet.payload.isEmpty()) {
+            this.sendToPlayers(packet,
+                    entityplayers);
+            return;
+        }
+        // Looped back packets are whole copies, so need no delta
+        entityplayers = this.loopback(packet,
+                entityplayers);
+        if (entityplayers.isEmpty()) return;
+        this.prepare(packet,
+                this.commands);
+        Object key = packet.getDeltaKey();
+        PacketPayload snapshot = packet.payload.copy();
+        try {
+            for (EntityPlayerMP entityplayer : entityplayers) {
+                PacketDeltaTracker.Tracked tracked = this.deltaTracker.track(entityplayer,
+                        key,
+                        snapshot);
+                packet.setDelta(tracked.getBase(),
+                        tracked.getBase() == null,
+                        tracked.getSequence());
+                ByteBuf frame = this.frame(this.encode(packet),
+                        discriminator);
+                if (this.batching) {
+                    this.queue(frame,
+                            packet.getPriority(),
+                            entityplayer);
+                } else {
+                    try {
+                        this.sendPacket(this.wrapper.getPacketFrom(new PacketBatch(frame)),
+                                Collections.singletonList(entityplayer));
+                    } finally {
+                        frame.release();
+                    }
+                }
+            }
+        } finally {
+            packet.setDelta(null,
+                    false,
+                    0);
+        }
+    }
+
+    /**
+     * Sends queued frames, one or more batches per player
+     * <p/>
+     * The lanes of each queue are drained in weighted turns. High priority
+     * frames are always sent, the other lanes stop once the player's bytes
+     * for the tick are spent and fragments also stop at their own limit, the
+     * rest wait for the next flush. Should be called from the server thread
+     * at the end of the tick
+     */
+    public void flush() {
+        Iterator<Map.Entry<NetHandlerPlayServer, PacketOutboundQueue>> queues = this.outbound.entrySet().iterator();
+        while (queues.hasNext()) {
+            Map.Entry<NetHandlerPlayServer, PacketOutboundQueue> entry = queues.next();
+            NetHandlerPlayServer handler = entry.getKey();
+            PacketOutboundQueue queue = entry.getValue();
+            // Send to whichever entity the connection currently plays
+            EntityPlayerMP entityplayer = handler.playerEntity;
+            NetworkManager manager = handler.getNetworkManager();
+            if (entityplayer == null || entityplayer.playerNetServerHandler != handler
+                    || manager == null || !manager.isChannelOpen()) {
+                queues.remove();
+                queue.release();
+                continue;
+            }
+            ByteBuf frames = Unpooled.buffer();
+            int budget = ConfigurationLib.maxSendBytesPerTick > 0 ? ConfigurationLib.maxSendBytesPerTick : Integer.MAX_VALUE;
+            int bulkBudget = ConfigurationLib.maxFragmentBytesPerTick;
+            boolean drained;
+            do {
+                drained = false;
+                for (PacketPriority priority : PacketPriority.values()) {
+                    if (priority != PacketPriority.HIGH && budget <= 0) continue;
+                    if (priority == PacketPriority.BULK && bulkBudget <= 0) continue;
+                    ByteBuf frame;
+                    for (int i = 0; i < priority.getWeight() && (frame = queue.poll(priority)) != null; i++) {
+                        int size = frame.readableBytes();
+                        budget -= size;
+                        if (priority == PacketPriority.BULK) bulkBudget -= size;
+                        frames = this.append(frames,
+                                frame,
+                                entityplayer);
+                        drained = true;
+                    }
+                }
+            } while (drained);
+            // The queue is kept until the player is removed, frames may be
+            // added from other threads at any time
+            this.sendBatch(frames,
+                    entityplayer);
+        }
+    }
+
+    /**
+     * Decodes a framed message and hands it to the executor registered for
+     * the receiving side, sending any reply straight back
+     *
+     * @param discriminator the index of the message on this channel
+     * @param data          the encoded message
+     * @param ctx           the context of the packet the frame arrived in
+     */
+    @SuppressWarnings("unchecked")
+    public void dispatch(int discriminator, ByteBuf data, MessageContext ctx) {
+        Class<? extends IMessage> type = this.messages.get(discriminator);
+        IMessageHandler handler = (ctx.side == Side.CLIENT ? this.clientExecutors : this.serverExecutors).get(discriminator);
+        if (type == null || handler == null) {
+            SlimevoidCore.console(CoreLib.MOD_ID,
+                    "Discarding unknown packet index " + discriminator
+                            + " on channel " + this.name,
+                    1);
+            return;
+        }
+        IMessage message;
+        try {
+            message = type.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to create packet " + type.getName(), e);
+        }
+        if (message instanceof EurysPacket) {
+            ((EurysPacket) message).setChannel(this.name);
+            if (PacketRecorder.isRecording()) {
+                PacketRecorder.record(this.name,
+                        discriminator,
+                        ctx.side,
+                        data,
+                        data.readerIndex(),
+                        data.readableBytes());
+            }
+        }
+        message.fromBytes(data);
+        IMessage reply = handler.onMessage(message,
+                ctx);
+        if (reply != null) {
+            if (ctx.side == Side.CLIENT) {
+                this.wrapper.sendToServer(reply);
+            } else {
+                this.wrapper.sendTo(reply,
+                        ctx.getServerHandler().playerEntity);
+            }
+        }
+    }
+
+    /**
+     * Encodes a message into a standalone frame
+     *
+     * @param message the message
+     * @return a buffer holding the frame header followed by the message
+     */
+    protected ByteBuf encodeFrame(IMessage message) {
+        return this.frame(this.encode(message),
+                this.discriminators.get(message.getClass()));
+    }
+
+    /**
+     * Encodes a message leaving space in front of it for a frame header
+     *
+     * @param message the message
+     * @return a buffer whose readable bytes are the encoded message
+     */
+    protected ByteBuf encode(IMessage message) {
+        ByteBuf data = Unpooled.buffer();
+        data.writerIndex(FRAME_HEADER);
+        data.readerIndex(FRAME_HEADER);
+        message.toBytes(data);
+        return data;
+    }
+
+    /**
+     * Writes the frame header in front of a message returned by
+     * {@link #encode(IMessage)}
+     *
+     * @param frame         the encoded message
+     * @param discriminator the index of the message on this channel
+     * @return the same buffer, now reading from the frame header
+     */
+    protected ByteBuf frame(ByteBuf frame, int discriminator) {
+        int end = frame.writerIndex();
+        int length = end - FRAME_HEADER;
+        int lengthSize = ByteBufHelper.getVarIntSize(length);
+        if (lengthSize > FRAME_HEADER - 1) {
+            frame.release();
+            throw new IllegalArgumentException("Packet index " + discriminator
+                    + " is too large to batch (" + length + " bytes)");
+        }
+        int start = FRAME_HEADER - 1 - lengthSize;
+        frame.writerIndex(start);
+        frame.writeByte(discriminator);
+        ByteBufHelper.writeVarInt(frame,
+                length);
+        frame.writerIndex(end);
+        frame.readerIndex(start);
+        return frame;
+    }
+
+    /**
+     * Builds the vanilla packet for a message returned by
+     * {@link #encode(IMessage)}, as {@link SimpleNetworkWrapper#getPacketFrom(IMessage)}
+     * would, ownership of the data passes to the packet
+     */
+    private Packet toPacket(ByteBuf data, int discriminator) {
+        int start = data.readerIndex() - 1;
+        data.setByte(start,
+                discriminator);
+        data.readerIndex(start);
+        return new FMLProxyPacket(new PacketBuffer(data), this.name);
+    }
+
+    /**
+     * Queues an encoded frame for a player, ownership of one reference to the
+     * frame passes to the queue
+     */
+    protected void queue(ByteBuf frame, PacketPriority priority, EntityPlayerMP entityplayer) {
+        if (entityplayer.playerNetServerHandler == null) {
+            frame.release();
+            return;
+        }
+        this.getQueue(entityplayer.playerNetServerHandler).add(frame,
+                priority);
+    }
+
+    /**
+     * Queues a frame for each of the given players, sharing its bytes read
+     * only, the reference held by the caller is released
+     */
+    protected void queue(ByteBuf frame, PacketPriority priority, Collection<EntityPlayerMP> entityplayers) {
+        ByteBuf shared = Unpooled.unmodifiableBuffer(frame);
+        try {
+            for (EntityPlayerMP entityplayer : entityplayers) {
+                this.queue(shared.duplicate().retain(),
+                        priority,
+                        entityplayer);
+            }
+        } finally {
+            shared.release();
+        }
+    }
+
+    /**
+     * Splits an encoded message into fragment frames queued in the bulk lane
+     * of each player, the reference to the data held by the caller is released
+     *
+     * @param discriminator the index of the message on this channel
+     * @param data          the encoded message
+     * @param entityplayers the recipients
+     */
+    protected void queueFragments(int discriminator, ByteBuf data, Collection<EntityPlayerMP> entityplayers) {
+        try {
+            int transferId = this.nextTransferId.getAndIncrement() & Integer.MAX_VALUE;
+            int length = data.readableBytes();
+            for (int index = 0; data.isReadable(); index++) {
+                int size = Math.min(data.readableBytes(),
+                        ConfigurationLib.maxFragmentBytes);
+                ByteBuf fragment = Unpooled.unmodifiableBuffer(this.encodeFrame(new PacketFragment(transferId, index, discriminator, length, data.readSlice(size))));
+                try {
+                    for (EntityPlayerMP entityplayer : entityplayers) {
+                        this.queue(fragment.duplicate().retain(),
+                                PacketPriority.BULK,
+                                entityplayer);
+                    }
+                } finally {
+                    fragment.release();
+                }
+            }
+        } finally {
+            data.release();
+        }
+    }
+
+    private PacketOutboundQueue getQueue(NetHandlerPlayServer handler) {
+        PacketOutboundQueue queue = this.outbound.get(handler);
+        if (queue == null) {
+            queue = new PacketOutboundQueue();
+            PacketOutboundQueue existing = this.outbound.putIfAbsent(handler,
+                    queue);
+            if (existing != null) {
+                queue = existing;
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Sets the dictionary a packet encodes its command with
+     */
+    private void prepare(IMessage message, PacketCommandDictionary commands) {
+        if (message instanceof PacketUpdate) {
+            ((PacketUpdate) message).setCommandDictionary(commands);
+        }
+    }
+
+    private boolean canQueue(IMessage message) {
+        return this.batching && this.discriminators.containsKey(message.getClass());
+    }
+
+    /**
+     * Whether a message can be handed to an executor in the same JVM
+     */
+    private boolean canLoopback(IMessage message) {
+        return ConfigurationLib.loopback && message instanceof PacketUpdate
+                && this.discriminators.containsKey(message.getClass());
+    }
+
+    /**
+     * Whether the server may have a local player to loop a message back to
+     */
+    private boolean canLoopbackFromServer(IMessage message) {
+        return this.canLoopback(message) && !MinecraftServer.getServer().isDedicatedServer();
+    }
+
+    /**
+     * Loops a message back to the local player among the recipients
+     *
+     * @return the recipients the message still has to be sent to
+     */
+    private Collection<EntityPlayerMP> loopback(IMessage message, Collection<EntityPlayerMP> entityplayers) {
+        if (!this.canLoopbackFromServer(message)) return entityplayers;
+        List<EntityPlayerMP> remote = null;
+        for (EntityPlayerMP entityplayer : entityplayers) {
+            if (PacketLoopback.isLocal(entityplayer)
+                    && PacketLoopback.toClient(this.clientExecutors.get(this.discriminators.get(message.getClass())),
+                    (PacketUpdate) message)) {
+                if (remote == null) {
+                    remote = new ArrayList<EntityPlayerMP>(entityplayers);
+                }
+                remote.remove(entityplayer);
+            }
+        }
+        return remote != null ? remote : entityplayers;
+    }
+
+    /**
+     * Whether a message is encoded up front so that it can be fragmented
+     */
+    private boolean canFragment(IMessage message) {
+        if (ConfigurationLib.maxFragmentBytes <= 0 || !(message instanceof PacketUpdate)) {
+            return false;
+        }
+        PacketPayload payload = ((PacketUpdate) message).payload;
+        return payload != null && !payload.isEmpty() && this.discriminators.containsKey(message.getClass());
+    }
+
+    private static PacketPriority getPriority(IMessage message) {
+        return message instanceof PacketUpdate ? ((PacketUpdate) message).getPriority() : PacketPriority.NORMAL;
+    }
+
+    private ByteBuf append(ByteBuf frames, ByteBuf frame, EntityPlayerMP entityplayer) {
+        if (frames.isReadable()
+                && frames.readableBytes() + frame.readableBytes() > ConfigurationLib.maxBatchBytes) {
+            this.sendBatch(frames,
+                    entityplayer);
+            frames = Unpooled.buffer();
+        }
+        frames.writeBytes(frame,
+                frame.readerIndex(),
+                frame.readableBytes());
+        frame.release();
+        return frames;
+    }
+
+    private void sendPacket(Packet packet, Collection<EntityPlayerMP> entityplayers) {
+        for (EntityPlayerMP entityplayer : entityplayers) {
+            if (entityplayer.playerNetServerHandler != null) {
+                entityplayer.playerNetServerHandler.sendPacket(packet);
+            }
+        }
+    }
+
+    private void sendBatch(ByteBuf frames, EntityPlayerMP entityplayer) {
+        try {
+            if (frames.isReadable()) {
+                this.wrapper.sendTo(new PacketBatch(frames),
+                        entityplayer);
+            }
+        } finally {
+            frames.release();
+        }
+    }
+
+    private static boolean isInRange(EntityPlayerMP entityplayer, TargetPoint point) {
+        if (entityplayer.dimension != point.dimension) return false;
+        double dx = point.x - entityplayer.posX;
+        double dy = point.y - entityplayer.posY;
+        double dz = point.z - entityplayer.posZ;
+        return dx * dx + dy * dy + dz * dz < point.range * point.range;
+    }
+}
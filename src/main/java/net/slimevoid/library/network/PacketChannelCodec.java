@@ -0,0 +1,68 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import net.minecraftforge.fml.common.network.NetworkRegistry;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.SimpleIndexedCodec;
+import net.slimevoid.library.util.helpers.PacketHelper;
+
+/**
+ * Codec of a library channel
+ * <p/>
+ * Sets the channel on packets before they are decoded, so that command ids,
+ * compressed and delta payloads can be resolved against it whether or not
+ * the packet's constructor sets a channel. Packets are captured here for the
+ * {@link PacketRecorder} while recording.
+ */
+public class PacketChannelCodec extends SimpleIndexedCodec {
+
+    private final String channel;
+
+    public PacketChannelCodec(String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void decodeInto(ChannelHandlerContext ctx, ByteBuf source, IMessage msg) {
+        if (msg instanceof EurysPacket) {
+            ((EurysPacket) msg).setChannel(this.channel);
+            if (PacketRecorder.isRecording()) {
+                this.capture(ctx,
+                        source,
+                        msg);
+            }
+        }
+        super.decodeInto(ctx,
+                source,
+                msg);
+    }
+
+    /**
+     * Hands the bytes a packet is about to be decoded from to the
+     * {@link PacketRecorder}
+     */
+    private void capture(ChannelHandlerContext ctx, ByteBuf source, IMessage msg) {
+        PacketChannel channel = PacketHelper.getChannel(this.channel);
+        Integer discriminator = channel != null ? channel.getDiscriminator(msg.getClass()) : null;
+        if (discriminator != null) {
+            PacketRecorder.record(this.channel,
+                    discriminator,
+                    ctx.channel().attr(NetworkRegistry.CHANNEL_SOURCE).get(),
+                    source,
+                    source.readerIndex(),
+                    source.readableBytes());
+        }
+    }
+}
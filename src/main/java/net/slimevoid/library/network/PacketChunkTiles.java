@@ -0,0 +1,140 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.BlockPos;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.slimevoid.library.tileentity.TileEntityBase;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+import net.slimevoid.library.util.nbt.NBTStreamWriter;
+
+import java.util.Collection;
+
+/**
+ * Description of every bulk synced tile in a chunk in a single packet
+ * <p/>
+ * Tiles stream their description through one {@link PacketNBTCodec} so their
+ * keys and ids are sent once per chunk. Each tile's position is packed into
+ * a short within the chunk and left out of its compound. The tiles are encoded once when
+ * the packet is created so it can be sent to several players, and decoded
+ * in one pass on the client.
+ *
+ * @see ChunkTileSync
+ */
+public class PacketChunkTiles implements IMessage {
+
+    private int chunkX;
+    private int chunkZ;
+
+    /**
+     * The encoded tiles when sending
+     */
+    private ByteBuf data;
+
+    /**
+     * The decoded tiles when received
+     */
+    private BlockPos[] positions;
+    private NBTTagCompound[] compounds;
+
+    public PacketChunkTiles() {
+    }
+
+    /**
+     * Encodes the description of the given tiles
+     *
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @param tiles  tiles within the chunk
+     */
+    public PacketChunkTiles(int chunkX, int chunkZ, Collection<TileEntityBase> tiles) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.data = Unpooled.buffer();
+        ByteBufHelper.writeVarInt(this.data,
+                tiles.size());
+        NBTStreamWriter writer = new PacketNBTCodec().newWriter(this.data);
+        for (TileEntityBase tile : tiles) {
+            BlockPos pos = tile.getPos();
+            this.data.writeShort((pos.getX() & 15) << 12 | (pos.getZ() & 15) << 8 | pos.getY() & 255);
+            writer.beginCompound("");
+            tile.writeDescription(writer);
+            writer.endCompound();
+        }
+    }
+
+    public int getChunkX() {
+        return this.chunkX;
+    }
+
+    public int getChunkZ() {
+        return this.chunkZ;
+    }
+
+    public int getTileCount() {
+        return this.positions != null ? this.positions.length : 0;
+    }
+
+    public BlockPos getPosition(int index) {
+        return this.positions[index];
+    }
+
+    public NBTTagCompound getDescription(int index) {
+        return this.compounds[index];
+    }
+
+    @Override
+    public void toBytes(ByteBuf buffer) {
+        ByteBufHelper.writeSignedVarInt(buffer,
+                this.chunkX);
+        ByteBufHelper.writeSignedVarInt(buffer,
+                this.chunkZ);
+        buffer.writeBytes(this.data,
+                this.data.readerIndex(),
+                this.data.readableBytes());
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buffer) {
+        this.chunkX = ByteBufHelper.readSignedVarInt(buffer);
+        this.chunkZ = ByteBufHelper.readSignedVarInt(buffer);
+        int count = ByteBufHelper.readVarInt(buffer);
+        // Every tile takes at least its position and an end tag
+        if (count < 0 || count > buffer.readableBytes() / 3) {
+            throw new IllegalStateException("Invalid tile count " + count + " for chunk " + this.chunkX + ", " + this.chunkZ);
+        }
+        this.positions = new BlockPos[count];
+        this.compounds = new NBTTagCompound[count];
+        PacketNBTCodec codec = new PacketNBTCodec();
+        for (int i = 0; i < count; i++) {
+            int packed = buffer.readUnsignedShort();
+            BlockPos pos = new BlockPos((this.chunkX << 4) + (packed >>> 12), packed & 255, (this.chunkZ << 4) + (packed >>> 8 & 15));
+            NBTTagCompound compound = codec.readCompound(buffer);
+            compound.setInteger("x",
+                    pos.getX());
+            compound.setInteger("y",
+                    pos.getY());
+            compound.setInteger("z",
+                    pos.getZ());
+            this.positions[i] = pos;
+            this.compounds[i] = compound;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[" + this.chunkX + ", " + this.chunkZ + "]";
+    }
+}
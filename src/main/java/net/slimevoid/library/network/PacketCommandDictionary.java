@@ -0,0 +1,99 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Maps packet command strings to the small ids sent in their place
+ * <p/>
+ * Ids are assigned in registration order. The server's dictionary is sent to
+ * each client at login so that both ends agree on the ids.
+ */
+public class PacketCommandDictionary {
+
+    private final Map<String, Integer> ids = Maps.newConcurrentMap();
+
+    private volatile String[] commands = new String[0];
+
+    public PacketCommandDictionary() {
+    }
+
+    /**
+     * Creates a dictionary holding the given commands in order
+     *
+     * @param commands the commands, their index becomes their id
+     */
+    public PacketCommandDictionary(String[] commands) {
+        for (String command : commands) {
+            this.register(command);
+        }
+    }
+
+    /**
+     * Registers a command if not already known
+     *
+     * @param command the command
+     * @return the id of the command
+     */
+    public synchronized int register(String command) {
+        Integer id = this.ids.get(command);
+        if (id != null) return id;
+        String[] commands = Arrays.copyOf(this.commands,
+                this.commands.length + 1);
+        commands[commands.length - 1] = command;
+        this.commands = commands;
+        this.ids.put(command,
+                commands.length - 1);
+        return commands.length - 1;
+    }
+
+    /**
+     * Retrieves the id of a command
+     *
+     * @param command the command
+     * @return the id or -1 if not registered
+     */
+    public int getId(String command) {
+        Integer id = this.ids.get(command);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Retrieves the command for an id
+     *
+     * @param id the id
+     * @return the command or null if unknown
+     */
+    public String getCommand(int id) {
+        String[] commands = this.commands;
+        return id >= 0 && id < commands.length ? commands[id] : null;
+    }
+
+    public int size() {
+        return this.commands.length;
+    }
+
+    /**
+     * Retrieves all commands ordered by id
+     *
+     * @return a copy of the commands
+     */
+    public String[] getCommands() {
+        String[] commands = this.commands;
+        return Arrays.copyOf(commands,
+                commands.length);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+
+/**
+ * Sends the server's command dictionary for a channel to a client at login
+ *
+ * @see PacketCommandDictionary
+ */
+public class PacketCommandTable implements IMessage {
+
+    private String[] commands;
+
+    public PacketCommandTable() {
+    }
+
+    public PacketCommandTable(PacketCommandDictionary dictionary) {
+        this.commands = dictionary.getCommands();
+    }
+
+    public String[] getCommands() {
+        return this.commands;
+    }
+
+    @Override
+    public void toBytes(ByteBuf buffer) {
+        ByteBufHelper.writeVarInt(buffer,
+                this.commands.length);
+        for (String command : this.commands) {
+            ByteBufUtils.writeUTF8String(buffer,
+                    command);
+        }
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buffer) {
+        this.commands = new String[ByteBufHelper.readVarInt(buffer)];
+        for (int i = 0; i < this.commands.length; i++) {
+            this.commands[i] = ByteBufUtils.readUTF8String(buffer);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate stage for the payloads of a channel
+ * <p/>
+ * Payloads that encode to at least the threshold are deflated, optionally
+ * against a preset dictionary of text the payloads are likely to contain.
+ * Both sides must set the same dictionary. Deflaters and inflaters are
+ * pooled so that their native buffers are reused rather than allocated for
+ * every packet.
+ */
+public class PacketCompressor {
+
+    /**
+     * Most idle deflaters and inflaters kept per channel
+     */
+    private static final int MAX_POOLED = 8;
+
+    /**
+     * Largest ratio of inflated to compressed bytes accepted, deflate itself
+     * tops out near 1032 so only crafted or degenerate payloads exceed this
+     */
+    private static final int MAX_RATIO = 256;
+
+    /**
+     * Bytes an inflated payload grows by at a time
+     */
+    private static final int INFLATE_CHUNK = 8192;
+
+    private static final ThreadLocal<byte[]> buffers = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[8192];
+        }
+    };
+
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+    private final AtomicInteger pooledDeflaters = new AtomicInteger();
+
+    private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<Inflater>();
+    private final AtomicInteger pooledInflaters = new AtomicInteger();
+
+    private volatile int threshold = 0;
+
+    private volatile byte[] dictionary;
+
+    /**
+     * Enables compression of payloads encoding to at least the threshold
+     *
+     * @param threshold  the smallest payload in bytes to compress, 0 disables
+     * @param dictionary the preset dictionary or null, must match the other side
+     */
+    public void setCompression(int threshold, byte[] dictionary) {
+        this.threshold = threshold;
+        this.dictionary = dictionary;
+    }
+
+    public int getThreshold() {
+        return this.threshold;
+    }
+
+    public boolean isEnabled() {
+        return this.threshold > 0;
+    }
+
+    /**
+     * Deflates the readable bytes of a buffer, leaving its reader index
+     *
+     * @param in  the encoded payload
+     * @param out the buffer to write the length of the payload as a varint
+     *            and the deflated bytes to
+     */
+    public void compress(ByteBuf in, ByteBuf out) {
+        ByteBufHelper.writeVarInt(out,
+                in.readableBytes());
+        Deflater deflater = this.deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(ConfigurationLib.compressionLevel);
+        } else {
+            this.pooledDeflaters.decrementAndGet();
+        }
+        try {
+            byte[] dictionary = this.dictionary;
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            if (in.hasArray()) {
+                deflater.setInput(in.array(),
+                        in.arrayOffset() + in.readerIndex(),
+                        in.readableBytes());
+            } else {
+                byte[] input = new byte[in.readableBytes()];
+                in.getBytes(in.readerIndex(),
+                        input);
+                deflater.setInput(input);
+            }
+            deflater.finish();
+            byte[] buffer = buffers.get();
+            while (!deflater.finished()) {
+                out.writeBytes(buffer,
+                        0,
+                        deflater.deflate(buffer));
+            }
+        } finally {
+            this.release(deflater);
+        }
+    }
+
+    /**
+     * Inflates a payload written by {@link #compress(ByteBuf, ByteBuf)}
+     * <p/>
+     * The output grows as it inflates, declared lengths beyond the
+     * configured limit or {@link #MAX_RATIO} times the compressed size are
+     * refused up front
+     *
+     * @param in the compressed payload
+     * @return a new buffer holding the payload, owned by the caller
+     */
+    public ByteBuf decompress(ByteBuf in) {
+        int length = ByteBufHelper.readVarInt(in);
+        if (length <= 0 || length > ConfigurationLib.maxReassemblyBytes
+                || length > (long) in.readableBytes() * MAX_RATIO) {
+            throw new IllegalStateException("Refusing compressed payload of " + length
+                    + " bytes from " + in.readableBytes());
+        }
+        Inflater inflater = this.inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        } else {
+            this.pooledInflaters.decrementAndGet();
+        }
+        ByteBuf out = Unpooled.buffer(Math.min(length,
+                        INFLATE_CHUNK),
+                length);
+        boolean inflated = false;
+        try {
+            if (in.hasArray()) {
+                inflater.setInput(in.array(),
+                        in.arrayOffset() + in.readerIndex(),
+                        in.readableBytes());
+            } else {
+                byte[] input = new byte[in.readableBytes()];
+                in.getBytes(in.readerIndex(),
+                        input);
+                inflater.setInput(input);
+            }
+            in.skipBytes(in.readableBytes());
+            while (out.writerIndex() < length) {
+                out.ensureWritable(Math.min(length - out.writerIndex(),
+                        INFLATE_CHUNK));
+                int count = inflater.inflate(out.array(),
+                        out.arrayOffset() + out.writerIndex(),
+                        Math.min(out.writableBytes(),
+                                length - out.writerIndex()));
+                if (count == 0) {
+                    if (inflater.needsDictionary() && this.dictionary != null) {
+                        inflater.setDictionary(this.dictionary);
+                    } else if (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()) {
+                        throw new IllegalStateException("Malformed compressed payload");
+                    }
+                }
+                out.writerIndex(out.writerIndex() + count);
+            }
+            inflated = true;
+            return out;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Malformed compressed payload", e);
+        } finally {
+            if (!inflated) {
+                out.release();
+            }
+            this.release(inflater);
+        }
+    }
+
+    private void release(Deflater deflater) {
+        deflater.reset();
+        if (this.pooledDeflaters.incrementAndGet() <= MAX_POOLED) {
+            this.deflaters.add(deflater);
+        } else {
+            this.pooledDeflaters.decrementAndGet();
+            deflater.end();
+        }
+    }
+
+    private void release(Inflater inflater) {
+        inflater.reset();
+        if (this.pooledInflaters.incrementAndGet() <= MAX_POOLED) {
+            this.inflaters.add(inflater);
+        } else {
+            this.pooledInflaters.decrementAndGet();
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+/**
+ * Identifies the target of a stream of delta synced packets
+ *
+ * @see PacketUpdate#getDeltaKey()
+ */
+public class PacketDeltaKey {
+
+    private final Class<?> type;
+
+    private final String command;
+
+    private final int x;
+
+    private final int y;
+
+    private final int z;
+
+    /**
+     * Whether the target is an entity id rather than a block position
+     */
+    private final boolean entity;
+
+    /**
+     * Creates the key of a block target
+     */
+    public PacketDeltaKey(Class<?> type, String command, int x, int y, int z) {
+        this(type, command, x, y, z, false);
+    }
+
+    /**
+     * Creates the key of an entity target
+     */
+    public PacketDeltaKey(Class<?> type, String command, int entityId) {
+        this(type, command, entityId, 0, 0, true);
+    }
+
+    private PacketDeltaKey(Class<?> type, String command, int x, int y, int z, boolean entity) {
+        this.type = type;
+        this.command = command;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.entity = entity;
+    }
+
+    public boolean isEntity() {
+        return this.entity;
+    }
+
+    /**
+     * Retrieves the entity id of an entity target
+     */
+    public int getEntityId() {
+        return this.x;
+    }
+
+    /**
+     * Whether the target is a block within the given chunk
+     */
+    public boolean isInChunk(int chunkX, int chunkZ) {
+        return !this.entity && this.x >> 4 == chunkX && this.z >> 4 == chunkZ;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof PacketDeltaKey)) return false;
+        PacketDeltaKey other = (PacketDeltaKey) obj;
+        return this.x == other.x && this.y == other.y && this.z == other.z && this.entity == other.entity
+                && this.type == other.type && this.command.equals(other.command);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.type.hashCode();
+        hash = 31 * hash + this.command.hashCode();
+        hash = 31 * hash + this.x;
+        hash = 31 * hash + this.y;
+        return 31 * hash + this.z;
+    }
+
+    @Override
+    public String toString() {
+        return this.type.getSimpleName() + "[" + this.command + "@"
+                + (this.entity ? "entity " + this.x : this.x + "," + this.y + "," + this.z) + "]";
+    }
+}
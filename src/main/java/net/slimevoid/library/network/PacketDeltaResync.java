@@ -0,0 +1,40 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+
+/**
+ * Asks the server for keyframes after a delta did not match the payload the
+ * client holds
+ * <p/>
+ * Carries no data, the server forgets every payload it sent the player on
+ * the channel so that the next packet for each target is a keyframe.
+ *
+ * @see PacketDeltaTracker
+ */
+public class PacketDeltaResync implements IMessage {
+
+    @Override
+    public void toBytes(ByteBuf buffer) {
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buffer) {
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import com.google.common.collect.Maps;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.world.World;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Payloads last sent to and received from each connection for delta sync
+ * <p/>
+ * Every payload sent for a target is numbered, a delta applies only to the
+ * payload numbered right before it. A receiver that holds any other payload,
+ * for instance because a frame was dropped or overtaken, drops the delta and
+ * asks for keyframes with a {@link PacketDeltaResync}. A full keyframe is
+ * also sent whenever the shape of the payload changes and at the configured
+ * interval. Block targets are forgotten when their chunk is no longer
+ * watched or loaded, entity targets once the entity is gone.
+ */
+public class PacketDeltaTracker {
+
+    /**
+     * Least time in milliseconds between two resync requests
+     */
+    private static final long RESYNC_INTERVAL = 1000L;
+
+    /**
+     * The payloads sent to each player, keyed by id since respawning
+     * replaces the player entity
+     */
+    private final ConcurrentMap<UUID, Recipient> sent = Maps.newConcurrentMap();
+
+    private final Map<Object, Received> received = Maps.newConcurrentMap();
+
+    private volatile long lastResync = 0L;
+
+    /**
+     * Records a payload about to be sent to a player
+     *
+     * @param entityplayer the recipient
+     * @param key          the target of the packet
+     * @param payload      a detached copy of the payload, not modified afterwards
+     * @return the payload to send a delta against, null for a keyframe, and
+     * the number to send the payload with
+     */
+    public Tracked track(EntityPlayerMP entityplayer, Object key, PacketPayload payload) {
+        Recipient recipient = this.sent.get(entityplayer.getUniqueID());
+        if (recipient == null) {
+            recipient = new Recipient(entityplayer);
+            Recipient existing = this.sent.putIfAbsent(entityplayer.getUniqueID(),
+                    recipient);
+            if (existing != null) {
+                recipient = existing;
+            }
+        }
+        recipient.entityplayer = entityplayer;
+        Map<Object, Sent> targets = recipient.targets;
+        Sent last = targets.get(key);
+        if (last == null || !payload.hasSameShape(last.payload)
+                || last.deltas >= ConfigurationLib.deltaKeyframeInterval) {
+            int sequence = last != null ? last.sequence + 1 : 0;
+            targets.put(key,
+                    new Sent(payload, sequence));
+            return new Tracked(null, sequence);
+        }
+        PacketPayload base = last.payload;
+        last.payload = payload;
+        last.deltas++;
+        last.sequence++;
+        return new Tracked(base, last.sequence);
+    }
+
+    /**
+     * Retrieves the payload a delta applies to
+     *
+     * @param key      the target of the delta
+     * @param sequence the number the delta was sent with
+     * @return the payload or null if the payload held is not the one the
+     * delta was made against
+     */
+    public PacketPayload getReceived(Object key, int sequence) {
+        Received last = this.received.get(key);
+        return last != null && last.sequence == sequence - 1 ? last.payload : null;
+    }
+
+    /**
+     * Stores a received payload for the next delta to apply to
+     */
+    public void setReceived(Object key, PacketPayload payload, int sequence) {
+        this.received.put(key,
+                new Received(payload, sequence));
+    }
+
+    /**
+     * Whether a resync may be requested now, at most once a second
+     */
+    public boolean tryResync() {
+        long now = System.currentTimeMillis();
+        if (now - this.lastResync < RESYNC_INTERVAL) {
+            return false;
+        }
+        this.lastResync = now;
+        return true;
+    }
+
+    public void removePlayer(EntityPlayerMP entityplayer) {
+        this.sent.remove(entityplayer.getUniqueID());
+    }
+
+    /**
+     * Forgets the blocks of a chunk a player no longer watches
+     */
+    public void unwatchChunk(EntityPlayerMP entityplayer, int chunkX, int chunkZ) {
+        Recipient recipient = this.sent.get(entityplayer.getUniqueID());
+        if (recipient == null) return;
+        Iterator<Object> keys = recipient.targets.keySet().iterator();
+        while (keys.hasNext()) {
+            Object key = keys.next();
+            if (key instanceof PacketDeltaKey && ((PacketDeltaKey) key).isInChunk(chunkX,
+                    chunkZ)) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Forgets the entities sent to players that are no longer in their world
+     * <p/>
+     * Called once a second on the server
+     */
+    public void expireSent() {
+        for (Recipient recipient : this.sent.values()) {
+            expireEntities(recipient.targets.keySet().iterator(),
+                    recipient.entityplayer.worldObj);
+        }
+    }
+
+    /**
+     * Forgets the blocks received for a chunk the client unloaded
+     */
+    public void unloadChunk(int chunkX, int chunkZ) {
+        Iterator<Object> keys = this.received.keySet().iterator();
+        while (keys.hasNext()) {
+            Object key = keys.next();
+            if (key instanceof PacketDeltaKey && ((PacketDeltaKey) key).isInChunk(chunkX,
+                    chunkZ)) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Forgets the entities received that are no longer in the client's world
+     *
+     * @param world the client world
+     */
+    public void expireReceived(World world) {
+        expireEntities(this.received.keySet().iterator(),
+                world);
+    }
+
+    /**
+     * Forgets the payloads received from the server
+     */
+    public void clearReceived() {
+        this.received.clear();
+    }
+
+    private static void expireEntities(Iterator<Object> keys, World world) {
+        while (keys.hasNext()) {
+            Object key = keys.next();
+            if (key instanceof PacketDeltaKey && ((PacketDeltaKey) key).isEntity()
+                    && (world == null || world.getEntityByID(((PacketDeltaKey) key).getEntityId()) == null)) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * What to send a payload as
+     */
+    public static class Tracked {
+        private final PacketPayload base;
+        private final int sequence;
+
+        Tracked(PacketPayload base, int sequence) {
+            this.base = base;
+            this.sequence = sequence;
+        }
+
+        /**
+         * @return the payload to send a delta against or null to send a keyframe
+         */
+        public PacketPayload getBase() {
+            return this.base;
+        }
+
+        public int getSequence() {
+            return this.sequence;
+        }
+    }
+
+    /**
+     * The payloads sent to a player and the entity last sent to
+     */
+    private static class Recipient {
+        private final Map<Object, Sent> targets = Maps.newConcurrentMap();
+        private volatile EntityPlayerMP entityplayer;
+
+        Recipient(EntityPlayerMP entityplayer) {
+            this.entityplayer = entityplayer;
+        }
+    }
+
+    private static class Sent {
+        private PacketPayload payload;
+        private int deltas = 0;
+        private int sequence;
+
+        Sent(PacketPayload payload, int sequence) {
+            this.payload = payload;
+            this.sequence = sequence;
+        }
+    }
+
+    private static class Received {
+        private final PacketPayload payload;
+        private final int sequence;
+
+        Received(PacketPayload payload, int sequence) {
+            this.payload = payload;
+            this.sequence = sequence;
+        }
+    }
+}
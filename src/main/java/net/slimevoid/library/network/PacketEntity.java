@@ -11,12 +11,9 @@
  */
 package net.slimevoid.library.network;
 
-import io.netty.buffer.ByteBuf;
 import net.minecraft.entity.Entity;
 import net.minecraft.world.World;
 
-import java.util.List;
-
 /**
  * Packet for sending Entity information
  * <p/>
@@ -25,8 +22,14 @@ import java.util.List;
  * @author Eurymachus
  */
 public abstract class PacketEntity extends PacketUpdate {
+    @PacketField
     private int entityId;
 
+    /**
+     * The resolved entity, not sent
+     */
+    private Entity entity;
+
     public PacketEntity() {
         super(PacketIds.ENTITY);
     }
@@ -50,33 +53,29 @@ public abstract class PacketEntity extends PacketUpdate {
     }
 
     @Override
-    public void writeData(ByteBuf data) {
-        super.writeData(data);
-        data.writeInt(this.entityId);
+    public Object getDeltaKey() {
+        return new PacketDeltaKey(this.getClass(), this.getCommand(), this.entityId);
     }
 
-    @Override
-    public void readData(ByteBuf data) {
-        super.readData(data);
-        this.entityId = data.readInt();
+    /**
+     * Get the entity targeted by this packet
+     * <p/>
+     * The entity is looked up through the world's id map and kept so that
+     * {@link #targetExists(World)} and the executor only resolve it once
+     *
+     * @param world The world in which the entity resides
+     * @return The entity or null if it is not loaded
+     */
+    public Entity getEntity(World world) {
+        if (this.entity == null || this.entity.worldObj != world || this.entity.getEntityId() != this.entityId) {
+            this.entity = world.getEntityByID(this.entityId);
+        }
+        return this.entity;
     }
 
     @Override
     public boolean targetExists(World world) {
-        // Get the loaded entities for the world
-        @SuppressWarnings("unchecked")
-        List<? extends Entity> entities = world.loadedEntityList;
-        // For each entity within the world
-        for (int i = 0; i < entities.size(); i++) {
-            // Get the current entity
-            Entity entity = entities.get(i);
-            // Is entity id of current loaded entity equal to this entity Id
-            if (entity != null && entity.getEntityId() == this.getEntityId()) {
-                // Entity is loaded and exists
-                return true;
-            }
-        }
-        // Entity does not exist or is not loaded
-        return false;
+        // Entity does not exist or is not loaded if the id is not mapped
+        return this.getEntity(world) != null;
     }
 }
@@ -0,0 +1,393 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import com.google.common.collect.Maps;
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the {@link PacketField} annotated fields of a packet class
+ * <p/>
+ * The codec is built once per class from typed {@link MethodHandle}s, so
+ * encoding a packet neither boxes values nor reflects on its fields. ints and
+ * longs are written as zigzag varints. The same handles copy the fields
+ * between packets for loopback delivery.
+ */
+public class PacketFieldCodec {
+
+    private static final Map<Class<?>, PacketFieldCodec> codecs = Maps.newConcurrentMap();
+
+    private final FieldCodec[] fields;
+
+    /**
+     * Whether all of the packet's data is in the header and its fields
+     */
+    private final boolean copyable;
+
+    private PacketFieldCodec(FieldCodec[] fields, boolean copyable) {
+        this.fields = fields;
+        this.copyable = copyable;
+    }
+
+    /**
+     * Retrieves the codec for a packet class, building it on first use
+     *
+     * @param clazz the packet class
+     * @return the codec
+     */
+    public static PacketFieldCodec forClass(Class<? extends PacketUpdate> clazz) {
+        PacketFieldCodec codec = codecs.get(clazz);
+        if (codec == null) {
+            codec = build(clazz);
+            codecs.put(clazz,
+                    codec);
+        }
+        return codec;
+    }
+
+    public boolean isEmpty() {
+        return this.fields.length == 0;
+    }
+
+    /**
+     * Checks whether packets of the class can be copied field by field
+     *
+     * @return false if the class encodes data of its own in writeData
+     */
+    public boolean isCopyable() {
+        return this.copyable;
+    }
+
+    /**
+     * Copies the annotated fields from one packet to another of the same class
+     *
+     * @param from the packet to copy from
+     * @param to   the packet to copy to
+     */
+    public void copy(PacketUpdate from, PacketUpdate to) {
+        try {
+            for (FieldCodec field : this.fields) {
+                field.copy(from,
+                        to);
+            }
+        } catch (Throwable t) {
+            throw new RuntimeException("Unable to copy fields of " + from, t);
+        }
+    }
+
+    public void write(PacketUpdate packet, ByteBuf data) {
+        try {
+            for (FieldCodec field : this.fields) {
+                field.write(packet,
+                        data);
+            }
+        } catch (Throwable t) {
+            throw new RuntimeException("Unable to write fields of " + packet, t);
+        }
+    }
+
+    public void read(PacketUpdate packet, ByteBuf data) {
+        try {
+            for (FieldCodec field : this.fields) {
+                field.read(packet,
+                        data);
+            }
+        } catch (Throwable t) {
+            throw new RuntimeException("Unable to read fields of " + packet, t);
+        }
+    }
+
+    private static PacketFieldCodec build(Class<?> clazz) {
+        List<FieldCodec> fields = new ArrayList<FieldCodec>();
+        collect(clazz,
+                fields);
+        boolean copyable;
+        try {
+            copyable = clazz.getMethod("writeData",
+                    ByteBuf.class).getDeclaringClass() == PacketUpdate.class
+                    && clazz.getMethod("readData",
+                    ByteBuf.class).getDeclaringClass() == PacketUpdate.class;
+        } catch (NoSuchMethodException e) {
+            copyable = false;
+        }
+        return new PacketFieldCodec(fields.toArray(new FieldCodec[fields.size()]), copyable);
+    }
+
+    private static void collect(Class<?> clazz, List<FieldCodec> codecs) {
+        if (clazz == null || clazz == PacketUpdate.class) return;
+        collect(clazz.getSuperclass(),
+                codecs);
+        List<Field> fields = new ArrayList<Field>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (field.isAnnotationPresent(PacketField.class)) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                    throw new IllegalArgumentException("Packet field " + field + " must not be static or final");
+                }
+                fields.add(field);
+            }
+        }
+        Collections.sort(fields,
+                new Comparator<Field>() {
+                    @Override
+                    public int compare(Field a, Field b) {
+                        int order = a.getAnnotation(PacketField.class).value() - b.getAnnotation(PacketField.class).value();
+                        return order != 0 ? order : a.getName().compareTo(b.getName());
+                    }
+                });
+        for (Field field : fields) {
+            codecs.add(create(field));
+        }
+    }
+
+    private static FieldCodec create(Field field) {
+        Class<?> type = field.getType();
+        field.setAccessible(true);
+        MethodHandle getter;
+        MethodHandle setter;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            getter = lookup.unreflectGetter(field).asType(MethodType.methodType(type,
+                    PacketUpdate.class));
+            setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class,
+                    PacketUpdate.class,
+                    type));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Unable to access packet field " + field, e);
+        }
+        if (type == int.class) return new IntCodec(getter, setter);
+        if (type == long.class) return new LongCodec(getter, setter);
+        if (type == short.class) return new ShortCodec(getter, setter);
+        if (type == byte.class) return new ByteCodec(getter, setter);
+        if (type == boolean.class) return new BooleanCodec(getter, setter);
+        if (type == float.class) return new FloatCodec(getter, setter);
+        if (type == double.class) return new DoubleCodec(getter, setter);
+        if (type == String.class) return new StringCodec(getter, setter);
+        throw new IllegalArgumentException("Unsupported packet field type " + type.getName() + " for " + field);
+    }
+
+    private static abstract class FieldCodec {
+        protected final MethodHandle getter;
+        protected final MethodHandle setter;
+
+        FieldCodec(MethodHandle getter, MethodHandle setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        abstract void write(PacketUpdate packet, ByteBuf data) throws Throwable;
+
+        abstract void read(PacketUpdate packet, ByteBuf data) throws Throwable;
+
+        abstract void copy(PacketUpdate from, PacketUpdate to) throws Throwable;
+    }
+
+    private static class IntCodec extends FieldCodec {
+        IntCodec(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(PacketUpdate packet, ByteBuf data) throws Throwable {
+            ByteBufHelper.writeSignedVarInt(data,
+                    (int) this.getter.invokeExact(packet));
+        }
+
+        @Override
+        void read(PacketUpdate packet, ByteBuf data) throws Throwable {
+            this.setter.invokeExact(packet,
+                    ByteBufHelper.readSignedVarInt(data));
+        }
+
+        @Override
+        void copy(PacketUpdate from, PacketUpdate to) throws Throwable {
+            this.setter.invokeExact(to,
+                    (int) this.getter.invokeExact(from));
+        }
+    }
+
+    private static class LongCodec extends FieldCodec {
+        LongCodec(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(PacketUpdate packet, ByteBuf data) throws Throwable {
+            ByteBufHelper.writeSignedVarLong(data,
+                    (long) this.getter.invokeExact(packet));
+        }
+
+        @Override
+        void read(PacketUpdate packet, ByteBuf data) throws Throwable {
+            this.setter.invokeExact(packet,
+                    ByteBufHelper.readSignedVarLong(data));
+        }
+
+        @Override
+        void copy(PacketUpdate from, PacketUpdate to) throws Throwable {
+            this.setter.invokeExact(to,
+                    (long) this.getter.invokeExact(from));
+        }
+    }
+
+    private static class ShortCodec extends FieldCodec {
+        ShortCodec(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(PacketUpdate packet, ByteBuf data) throws Throwable {
+            data.writeShort((short) this.getter.invokeExact(packet));
+        }
+
+        @Override
+        void read(PacketUpdate packet, ByteBuf data) throws Throwable {
+            this.setter.invokeExact(packet,
+                    data.readShort());
+        }
+
+        @Override
+        void copy(PacketUpdate from, PacketUpdate to) throws Throwable {
+            this.setter.invokeExact(to,
+                    (short) this.getter.invokeExact(from));
+        }
+    }
+
+    private static class ByteCodec extends FieldCodec {
+        ByteCodec(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(PacketUpdate packet, ByteBuf data) throws Throwable {
+            data.writeByte((byte) this.getter.invokeExact(packet));
+        }
+
+        @Override
+        void read(PacketUpdate packet, ByteBuf data) throws Throwable {
+            this.setter.invokeExact(packet,
+                    data.readByte());
+        }
+
+        @Override
+        void copy(PacketUpdate from, PacketUpdate to) throws Throwable {
+            this.setter.invokeExact(to,
+                    (byte) this.getter.invokeExact(from));
+        }
+    }
+
+    private static class BooleanCodec extends FieldCodec {
+        BooleanCodec(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(PacketUpdate packet, ByteBuf data) throws Throwable {
+            data.writeBoolean((boolean) this.getter.invokeExact(packet));
+        }
+
+        @Override
+        void read(PacketUpdate packet, ByteBuf data) throws Throwable {
+            this.setter.invokeExact(packet,
+                    data.readBoolean());
+        }
+
+        @Override
+        void copy(PacketUpdate from, PacketUpdate to) throws Throwable {
+            this.setter.invokeExact(to,
+                    (boolean) this.getter.invokeExact(from));
+        }
+    }
+
+    private static class FloatCodec extends FieldCodec {
+        FloatCodec(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(PacketUpdate packet, ByteBuf data) throws Throwable {
+            data.writeFloat((float) this.getter.invokeExact(packet));
+        }
+
+        @Override
+        void read(PacketUpdate packet, ByteBuf data) throws Throwable {
+            this.setter.invokeExact(packet,
+                    data.readFloat());
+        }
+
+        @Override
+        void copy(PacketUpdate from, PacketUpdate to) throws Throwable {
+            this.setter.invokeExact(to,
+                    (float) this.getter.invokeExact(from));
+        }
+    }
+
+    private static class DoubleCodec extends FieldCodec {
+        DoubleCodec(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(PacketUpdate packet, ByteBuf data) throws Throwable {
+            data.writeDouble((double) this.getter.invokeExact(packet));
+        }
+
+        @Override
+        void read(PacketUpdate packet, ByteBuf data) throws Throwable {
+            this.setter.invokeExact(packet,
+                    data.readDouble());
+        }
+
+        @Override
+        void copy(PacketUpdate from, PacketUpdate to) throws Throwable {
+            this.setter.invokeExact(to,
+                    (double) this.getter.invokeExact(from));
+        }
+    }
+
+    private static class StringCodec extends FieldCodec {
+        StringCodec(MethodHandle getter, MethodHandle setter) {
+            super(getter, setter);
+        }
+
+        @Override
+        void write(PacketUpdate packet, ByteBuf data) throws Throwable {
+            String value = (String) this.getter.invokeExact(packet);
+            ByteBufUtils.writeUTF8String(data,
+                    value != null ? value : "");
+        }
+
+        @Override
+        void read(PacketUpdate packet, ByteBuf data) throws Throwable {
+            this.setter.invokeExact(packet,
+                    ByteBufUtils.readUTF8String(data));
+        }
+
+        @Override
+        void copy(PacketUpdate from, PacketUpdate to) throws Throwable {
+            this.setter.invokeExact(to,
+                    (String) this.getter.invokeExact(from));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+
+/**
+ * A sequenced piece of a message too large to send whole
+ * <p/>
+ * Each fragment carries the transfer id and its index as varints. The first
+ * fragment of a transfer also carries the discriminator of the wrapped
+ * message and its total length. The rest of the packet is the next run of
+ * the encoded message.
+ *
+ * @see PacketReassembler
+ */
+public class PacketFragment implements IMessage {
+
+    private int transferId;
+
+    private int index;
+
+    private int discriminator;
+
+    private int length;
+
+    private ByteBuf data;
+
+    public PacketFragment() {
+    }
+
+    public PacketFragment(int transferId, int index, int discriminator, int length, ByteBuf data) {
+        this.transferId = transferId;
+        this.index = index;
+        this.discriminator = discriminator;
+        this.length = length;
+        this.data = data;
+    }
+
+    public int getTransferId() {
+        return this.transferId;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Retrieves the discriminator of the wrapped message, only sent with the
+     * first fragment
+     */
+    public int getDiscriminator() {
+        return this.discriminator;
+    }
+
+    /**
+     * Retrieves the total length of the wrapped message, only sent with the
+     * first fragment
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Retrieves the bytes carried by this fragment
+     *
+     * @return the bytes, only valid while the fragment is handled
+     */
+    public ByteBuf getData() {
+        return this.data;
+    }
+
+    @Override
+    public void toBytes(ByteBuf buffer) {
+        ByteBufHelper.writeVarInt(buffer,
+                this.transferId);
+        ByteBufHelper.writeVarInt(buffer,
+                this.index);
+        if (this.index == 0) {
+            buffer.writeByte(this.discriminator);
+            ByteBufHelper.writeVarInt(buffer,
+                    this.length);
+        }
+        buffer.writeBytes(this.data,
+                this.data.readerIndex(),
+                this.data.readableBytes());
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buffer) {
+        this.transferId = ByteBufHelper.readVarInt(buffer);
+        this.index = ByteBufHelper.readVarInt(buffer);
+        if (this.index == 0) {
+            this.discriminator = buffer.readUnsignedByte();
+            this.length = ByteBufHelper.readVarInt(buffer);
+        }
+        this.data = buffer.readSlice(buffer.readableBytes());
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+}
@@ -1,9 +1,8 @@
 package net.slimevoid.library.network;
 
-import io.netty.buffer.ByteBuf;
-
 public abstract class PacketGuiEvent extends PacketUpdate {
 
+    @PacketField
     private int guiID;
 
     public PacketGuiEvent() {
@@ -18,16 +17,4 @@ public abstract class PacketGuiEvent extends PacketUpdate {
         return this.guiID;
     }
 
-    @Override
-    public void writeData(ByteBuf data) {
-        super.writeData(data);
-        data.writeInt(this.guiID);
-    }
-
-    @Override
-    public void readData(ByteBuf data) {
-        super.readData(data);
-        this.guiID = data.readInt();
-    }
-
 }
@@ -0,0 +1,111 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.NetworkManager;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.fml.client.FMLClientHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+import net.slimevoid.library.network.executor.PacketExecutor;
+
+/**
+ * Delivers packets between the client and the integrated server in memory
+ * <p/>
+ * When both ends of a connection are in the same JVM a copy of the packet is
+ * queued straight for the executor on the other side, so it is never encoded
+ * or decoded. Only packets handled by a {@link PacketExecutor} that queues
+ * them for the main thread are looped back, they go through the executor's
+ * {@link PacketExecutor#onMessage} like a received packet, rate limits
+ * included.
+ */
+public class PacketLoopback {
+
+    /**
+     * Checks whether a player is the host of the integrated server
+     *
+     * @param entityplayer the player
+     * @return true if packets to the player can be looped back
+     */
+    public static boolean isLocal(EntityPlayerMP entityplayer) {
+        return ConfigurationLib.loopback && entityplayer.playerNetServerHandler != null
+                && entityplayer.playerNetServerHandler.getNetworkManager().isLocalChannel();
+    }
+
+    /**
+     * Checks whether the client is connected to its own integrated server
+     *
+     * @return true if packets to the server can be looped back
+     */
+    @SideOnly(Side.CLIENT)
+    public static boolean isLocalServer() {
+        if (!ConfigurationLib.loopback) return false;
+        NetworkManager manager = FMLClientHandler.instance().getClientToServerNetworkManager();
+        return manager != null && manager.isLocalChannel();
+    }
+
+    /**
+     * Queues a copy of a packet for the client of the integrated server
+     *
+     * @param handler the client executor for the packet
+     * @param packet  the packet
+     * @return false if the packet has to be sent over the network
+     */
+    @SideOnly(Side.CLIENT)
+    public static boolean toClient(IMessageHandler handler, PacketUpdate packet) {
+        if (!(handler instanceof PacketExecutor) || !((PacketExecutor) handler).canLoopback()) return false;
+        MessageContext ctx = getClientContext();
+        if (ctx == null) return false;
+        queue((PacketExecutor) handler,
+                packet,
+                ctx);
+        return true;
+    }
+
+    /**
+     * Queues a copy of a packet for the integrated server
+     *
+     * @param handler the server executor for the packet
+     * @param packet  the packet
+     * @return false if the packet has to be sent over the network
+     */
+    @SideOnly(Side.CLIENT)
+    public static boolean toServer(IMessageHandler handler, PacketUpdate packet) {
+        if (!(handler instanceof PacketExecutor) || !((PacketExecutor) handler).canLoopback()) return false;
+        Minecraft minecraft = FMLClientHandler.instance().getClient();
+        MinecraftServer server = MinecraftServer.getServer();
+        if (minecraft.thePlayer == null || server == null) return false;
+        EntityPlayerMP entityplayer = server.getConfigurationManager().getPlayerByUUID(minecraft.thePlayer.getUniqueID());
+        if (entityplayer == null || entityplayer.playerNetServerHandler == null) return false;
+        queue((PacketExecutor) handler,
+                packet,
+                new MessageContext(entityplayer.playerNetServerHandler, Side.SERVER));
+        return true;
+    }
+
+    @SideOnly(Side.CLIENT)
+    private static MessageContext getClientContext() {
+        Minecraft minecraft = FMLClientHandler.instance().getClient();
+        return minecraft.getNetHandler() != null ? new MessageContext(minecraft.getNetHandler(), Side.CLIENT) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void queue(PacketExecutor executor, PacketUpdate packet, MessageContext ctx) {
+        executor.onMessage(packet.copy(),
+                ctx);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+import net.slimevoid.library.util.nbt.NBTStreamReader;
+import net.slimevoid.library.util.nbt.NBTStreamWriter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary NBT encoding with a string table shared across tags
+ * <p/>
+ * Keys and String values are sent once and referred to by index after that,
+ * so the same keys written for many compounds cost a varint each. A string
+ * is written as its varint index, or the current table size followed by the
+ * string when it is new, which the reader appends to its table in turn.
+ * Integral values and lengths are zigzag varints and compounds have no root
+ * header, otherwise the layout is that of vanilla NBT. A codec holds the
+ * table for one message and must read tags in the order they were written.
+ */
+public class PacketNBTCodec {
+
+    private final Map<String, Integer> ids = Maps.newHashMap();
+
+    private final List<String> strings = Lists.newArrayList();
+
+    public void writeString(ByteBuf data, String value) {
+        Integer id = this.ids.get(value);
+        if (id != null) {
+            ByteBufHelper.writeVarInt(data,
+                    id);
+        } else {
+            id = this.ids.size();
+            this.ids.put(value,
+                    id);
+            ByteBufHelper.writeVarInt(data,
+                    id);
+            ByteBufUtils.writeUTF8String(data,
+                    value);
+        }
+    }
+
+    public String readString(ByteBuf data) {
+        int id = ByteBufHelper.readVarInt(data);
+        if (id < this.strings.size()) {
+            return this.strings.get(id);
+        }
+        if (id != this.strings.size()) {
+            throw new IllegalStateException("String table index " + id + " out of order, expected " + this.strings.size());
+        }
+        String value = ByteBufUtils.readUTF8String(data);
+        this.strings.add(value);
+        return value;
+    }
+
+    /**
+     * Creates a writer encoding through this codec's string table
+     *
+     * @param data the buffer to encode into
+     * @return a new writer
+     */
+    public NBTStreamWriter newWriter(final ByteBuf data) {
+        return new NBTStreamWriter(data) {
+            @Override
+            protected void writeRootHeader(String name) {
+            }
+
+            @Override
+            protected void writeName(String name) {
+                PacketNBTCodec.this.writeString(data,
+                        name);
+            }
+
+            @Override
+            protected void writeStringValue(String value) {
+                PacketNBTCodec.this.writeString(data,
+                        value);
+            }
+
+            @Override
+            protected void writeShortValue(short value) {
+                ByteBufHelper.writeSignedVarInt(data,
+                        value);
+            }
+
+            @Override
+            protected void writeIntValue(int value) {
+                ByteBufHelper.writeSignedVarInt(data,
+                        value);
+            }
+
+            @Override
+            protected void writeLongValue(long value) {
+                ByteBufHelper.writeSignedVarLong(data,
+                        value);
+            }
+
+            @Override
+            protected void writeLength(int length) {
+                ByteBufHelper.writeVarInt(data,
+                        length);
+            }
+        };
+    }
+
+    /**
+     * Creates a reader decoding through this codec's string table
+     *
+     * @param data the buffer to decode from
+     * @return a new reader
+     */
+    public NBTStreamReader newReader(final ByteBuf data) {
+        return new NBTStreamReader(data) {
+            @Override
+            protected String readRootHeader() {
+                return "";
+            }
+
+            @Override
+            protected String readName() {
+                return PacketNBTCodec.this.readString(data);
+            }
+
+            @Override
+            protected String readStringValue() {
+                return PacketNBTCodec.this.readString(data);
+            }
+
+            @Override
+            protected short readShortValue() {
+                return (short) ByteBufHelper.readSignedVarInt(data);
+            }
+
+            @Override
+            protected int readIntValue() {
+                return ByteBufHelper.readSignedVarInt(data);
+            }
+
+            @Override
+            protected long readLongValue() {
+                return ByteBufHelper.readSignedVarLong(data);
+            }
+
+            @Override
+            protected int readLengthValue() {
+                return ByteBufHelper.readVarInt(data);
+            }
+        };
+    }
+
+    /**
+     * Writes the entries of a compound followed by an end tag
+     *
+     * @param data     the buffer to encode into
+     * @param compound the compound
+     */
+    public void writeCompound(ByteBuf data, NBTTagCompound compound) {
+        this.newWriter(data).beginCompound("").writeEntries(compound).endCompound();
+    }
+
+    public NBTTagCompound readCompound(ByteBuf data) {
+        return this.newReader(data).readCompound();
+    }
+}
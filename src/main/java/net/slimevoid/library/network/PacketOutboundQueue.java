@@ -0,0 +1,76 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Encoded frames waiting to be sent to a single connection
+ * <p/>
+ * Frames wait in one lane per {@link PacketPriority}, the order within a lane
+ * is kept. Each frame holds one reference which is released once it has been
+ * copied into a batch or the queue is discarded.
+ */
+public class PacketOutboundQueue {
+
+    private final Queue<ByteBuf>[] lanes;
+
+    @SuppressWarnings("unchecked")
+    public PacketOutboundQueue() {
+        this.lanes = new Queue[PacketPriority.values().length];
+        for (int i = 0; i < this.lanes.length; i++) {
+            this.lanes[i] = new ConcurrentLinkedQueue<ByteBuf>();
+        }
+    }
+
+    /**
+     * Queues an encoded frame, ownership of one reference passes to the queue
+     *
+     * @param frame    the frame
+     * @param priority the lane to queue the frame in
+     */
+    public void add(ByteBuf frame, PacketPriority priority) {
+        this.lanes[priority.ordinal()].add(frame);
+    }
+
+    /**
+     * Retrieves and removes the next frame of a lane
+     *
+     * @param priority the lane
+     * @return the frame or null if the lane is empty
+     */
+    public ByteBuf poll(PacketPriority priority) {
+        return this.lanes[priority.ordinal()].poll();
+    }
+
+    public boolean isEmpty() {
+        for (Queue<ByteBuf> lane : this.lanes) {
+            if (!lane.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Discards every queued frame
+     */
+    public void release() {
+        for (Queue<ByteBuf> lane : this.lanes) {
+            ByteBuf frame;
+            while ((frame = lane.poll()) != null) {
+                frame.release();
+            }
+        }
+    }
+}
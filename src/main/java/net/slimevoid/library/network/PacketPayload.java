@@ -11,6 +11,10 @@
  */
 package net.slimevoid.library.network;
 
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+
 import java.util.Arrays;
 
 /**
@@ -19,6 +23,15 @@ import java.util.Arrays;
  * @author Eurymachus
  */
 public class PacketPayload {
+    /**
+     * Section flags written ahead of the payload, empty sections are skipped
+     */
+    static final int SECTION_INT = 1;
+    static final int SECTION_FLOAT = 2;
+    static final int SECTION_STRING = 4;
+    static final int SECTION_BOOL = 8;
+    static final int SECTION_DOUBLE = 16;
+
     public static <T> T[] concat(T[] first, T[] second) {
         T[] result = Arrays.copyOf(first,
                 first.length + second.length);
@@ -95,61 +108,95 @@ public class PacketPayload {
     private double[] doublePayload;
 
     /**
-     * Array of boolean values
+     * Bitset of boolean values, 64 values per long
+     */
+    private long[] boolPayload;
+
+    /**
+     * Number of values in use within each array, the arrays may hold spare
+     * capacity beyond these counts
      */
-    private boolean[] boolPayload;
+    private int intSize;
+    private int floatSize;
+    private int stringSize;
+    private int doubleSize;
+    private int boolSize;
 
     public PacketPayload() {
     }
 
+    /**
+     * Constructor Create a new PacketPayload around existing arrays
+     * <p/>
+     * The arrays are used as is and may be longer than the sizes given
+     *
+     * @param intPayload    The int values
+     * @param intSize       The number of int values in use
+     * @param floatPayload  The float values
+     * @param floatSize     The number of float values in use
+     * @param stringPayload The String values
+     * @param stringSize    The number of String values in use
+     * @param boolPayload   The boolean values as a bitset
+     * @param boolSize      The number of boolean values in use
+     * @param doublePayload The double values
+     * @param doubleSize    The number of double values in use
+     */
+    protected PacketPayload(int[] intPayload, int intSize, float[] floatPayload, int floatSize, String[] stringPayload, int stringSize, long[] boolPayload, int boolSize, double[] doublePayload, int doubleSize) {
+        this.intPayload = intPayload;
+        this.intSize = intSize;
+        this.floatPayload = floatPayload;
+        this.floatSize = floatSize;
+        this.stringPayload = stringPayload;
+        this.stringSize = stringSize;
+        this.boolPayload = boolPayload;
+        this.boolSize = boolSize;
+        this.doublePayload = doublePayload;
+        this.doubleSize = doubleSize;
+    }
+
     /**
      * Retrieves the intPayload size
      *
-     * @return intPayload.length or 0 if null
+     * @return the number of int values held
      */
     public int getIntSize() {
-        if (this.intPayload != null) return this.intPayload.length;
-        return 0;
+        return this.intSize;
     }
 
     /**
      * Retrieves the floatPayload size
      *
-     * @return floatPayload.length or 0 if null
+     * @return the number of float values held
      */
     public int getFloatSize() {
-        if (this.floatPayload != null) return this.floatPayload.length;
-        return 0;
+        return this.floatSize;
     }
 
     /**
      * Retrieves the doublePayload size
      *
-     * @return doublePayload.length or 0 if null
+     * @return the number of double values held
      */
     public int getDoubleSize() {
-        if (this.doublePayload != null) return this.doublePayload.length;
-        return 0;
+        return this.doubleSize;
     }
 
     /**
      * Retrieves the stringPayload size
      *
-     * @return stringPayload.length or 0 if null
+     * @return the number of string values held
      */
     public int getStringSize() {
-        if (this.stringPayload != null) return this.stringPayload.length;
-        return 0;
+        return this.stringSize;
     }
 
     /**
      * Retrieves the boolPayload size
      *
-     * @return boolPayload.length or 0 if null
+     * @return the number of bool values held
      */
     public int getBoolSize() {
-        if (this.boolPayload != null) return this.boolPayload.length;
-        return 0;
+        return this.boolSize;
     }
 
     /**
@@ -221,7 +268,9 @@ public class PacketPayload {
      */
     public boolean setBoolPayload(int index, boolean newBool) {
         if (this.boolPayload != null && index < this.getBoolSize()) {
-            this.boolPayload[index] = newBool;
+            setBit(this.boolPayload,
+                    index,
+                    newBool);
             return true;
         }
         return false;
@@ -276,10 +325,11 @@ public class PacketPayload {
      * Retrieves a boolean value stored in boolPayload
      *
      * @param index The index in the array
-     * @return boolPayload[index] or false if null
+     * @return the bit at index or false if null
      */
     public boolean getBoolPayload(int index) {
-        if (this.boolPayload != null && index < this.getBoolSize()) return this.boolPayload[index];
+        if (this.boolPayload != null && index < this.getBoolSize()) return getBit(this.boolPayload,
+                index);
         return false;
     }
 
@@ -295,7 +345,12 @@ public class PacketPayload {
         this.intPayload = new int[intSize];
         this.floatPayload = new float[floatSize];
         this.stringPayload = new String[stringSize];
-        this.boolPayload = new boolean[boolSize];
+        this.boolPayload = new long[words(boolSize)];
+        this.doublePayload = new double[0];
+        this.intSize = intSize;
+        this.floatSize = floatSize;
+        this.stringSize = stringSize;
+        this.boolSize = boolSize;
     }
 
     /**
@@ -310,67 +365,556 @@ public class PacketPayload {
     public PacketPayload(int intSize, int floatSize, int stringSize, int boolSize, int doubleSize) {
         this(intSize, floatSize, stringSize, boolSize);
         this.doublePayload = new double[doubleSize];
+        this.doubleSize = doubleSize;
     }
 
     public void append(PacketPayload other) {
         if (other == null) return;
-
-        if (other.intPayload.length > 0) this.intPayload = concat(this.intPayload,
-                other.intPayload);
-        if (other.floatPayload.length > 0) this.floatPayload = concat(this.floatPayload,
-                other.floatPayload);
-        if (other.doublePayload.length > 0) this.doublePayload = concat(this.doublePayload,
-                other.doublePayload);
-        if (other.stringPayload.length > 0) this.stringPayload = concat(this.stringPayload,
-                other.stringPayload);
-        if (other.boolPayload.length > 0) this.boolPayload = concat(this.boolPayload,
-                other.boolPayload);
+        other = other.materialize();
+
+        if (other.intSize > 0) {
+            this.ensureIntCapacity(this.intSize + other.intSize);
+            System.arraycopy(other.intPayload,
+                    0,
+                    this.intPayload,
+                    this.intSize,
+                    other.intSize);
+            this.intSize += other.intSize;
+        }
+        if (other.floatSize > 0) {
+            this.ensureFloatCapacity(this.floatSize + other.floatSize);
+            System.arraycopy(other.floatPayload,
+                    0,
+                    this.floatPayload,
+                    this.floatSize,
+                    other.floatSize);
+            this.floatSize += other.floatSize;
+        }
+        if (other.doubleSize > 0) {
+            this.ensureDoubleCapacity(this.doubleSize + other.doubleSize);
+            System.arraycopy(other.doublePayload,
+                    0,
+                    this.doublePayload,
+                    this.doubleSize,
+                    other.doubleSize);
+            this.doubleSize += other.doubleSize;
+        }
+        if (other.stringSize > 0) {
+            this.ensureStringCapacity(this.stringSize + other.stringSize);
+            System.arraycopy(other.stringPayload,
+                    0,
+                    this.stringPayload,
+                    this.stringSize,
+                    other.stringSize);
+            this.stringSize += other.stringSize;
+        }
+        if (other.boolSize > 0) {
+            this.ensureBoolCapacity(this.boolSize + other.boolSize);
+            copyBits(other.boolPayload,
+                    0,
+                    this.boolPayload,
+                    this.boolSize,
+                    other.boolSize);
+            this.boolSize += other.boolSize;
+        }
     }
 
     public void append(int[] other) {
-        if (other == null || other.length < 0) return;
+        if (other == null || other.length == 0) return;
 
-        this.intPayload = concat(this.intPayload,
-                other);
+        this.ensureIntCapacity(this.intSize + other.length);
+        System.arraycopy(other,
+                0,
+                this.intPayload,
+                this.intSize,
+                other.length);
+        this.intSize += other.length;
     }
 
-    public void splitTail(IndexInPayload index) {
-        PacketPayload payload = new PacketPayload(intPayload.length
-                - index.intIndex, floatPayload.length
-                - index.floatIndex, stringPayload.length
-                - index.stringIndex, boolPayload.length
-                - index.boolIndex);
+    /**
+     * Retrieves the values from the given index onwards
+     * <p/>
+     * Nothing is copied, the returned payload is a {@link PacketPayloadSlice}
+     * sharing this payload's values
+     *
+     * @param index the first value of each section to include
+     * @return a view over the tail of each section
+     */
+    public PacketPayload splitTail(IndexInPayload index) {
+        return this.slice(index,
+                this.getIndex());
+    }
 
-        if (intPayload.length > 0) System.arraycopy(intPayload,
-                index.intIndex,
-                payload.intPayload,
-                0,
-                payload.intPayload.length);
-        if (floatPayload.length > 0) System.arraycopy(floatPayload,
-                index.floatIndex,
-                payload.floatPayload,
-                0,
-                payload.floatPayload.length);
-        if (doublePayload.length > 0) System.arraycopy(doublePayload,
-                index.doubleIndex,
-                payload.doublePayload,
-                0,
-                payload.doublePayload.length);
-        if (stringPayload.length > 0) System.arraycopy(stringPayload,
-                index.stringIndex,
-                payload.stringPayload,
-                0,
-                payload.stringPayload.length);
-        if (boolPayload.length > 0) System.arraycopy(boolPayload,
-                index.boolIndex,
-                payload.boolPayload,
-                0,
-                payload.boolPayload.length);
+    /**
+     * Retrieves a sub-view over a range of each section without copying
+     * <p/>
+     * Writes through the slice update this payload, the slice is only valid
+     * as long as this payload is
+     *
+     * @param from the first value of each section to include
+     * @param to   the end of each section, exclusive
+     * @return a new PacketPayloadSlice
+     */
+    public PacketPayload slice(IndexInPayload from, IndexInPayload to) {
+        return new PacketPayloadSlice(this, from, to);
+    }
+
+    /**
+     * Retrieves the end of each section
+     *
+     * @return the number of values held per type
+     */
+    public IndexInPayload getIndex() {
+        return new IndexInPayload(this.getIntSize(), this.getFloatSize(), this.getStringSize(), this.getBoolSize(), this.getDoubleSize());
+    }
+
+    /**
+     * Creates a cursor reading each section from the start
+     *
+     * @return a new PayloadReader
+     */
+    public PayloadReader reader() {
+        return new PayloadReader(this);
     }
 
     public void addIntValue(int newValue) {
-        int[] newInt = new int[1];
-        newInt[0] = newValue;
-        append(newInt);
+        this.ensureIntCapacity(this.intSize + 1);
+        this.intPayload[this.intSize++] = newValue;
+    }
+
+    /**
+     * Returns the capacity to grow an array to, at least double the current
+     * length so that repeated appends copy each value a constant number of
+     * times
+     */
+    private static int grow(int length, int required) {
+        return Math.max(required,
+                Math.max(length << 1,
+                        8));
+    }
+
+    private void ensureIntCapacity(int required) {
+        if (this.intPayload == null) this.intPayload = new int[grow(0, required)];
+        else if (this.intPayload.length < required) this.intPayload = Arrays.copyOf(this.intPayload,
+                grow(this.intPayload.length, required));
+    }
+
+    private void ensureFloatCapacity(int required) {
+        if (this.floatPayload == null) this.floatPayload = new float[grow(0, required)];
+        else if (this.floatPayload.length < required) this.floatPayload = Arrays.copyOf(this.floatPayload,
+                grow(this.floatPayload.length, required));
+    }
+
+    private void ensureStringCapacity(int required) {
+        if (this.stringPayload == null) this.stringPayload = new String[grow(0, required)];
+        else if (this.stringPayload.length < required) this.stringPayload = Arrays.copyOf(this.stringPayload,
+                grow(this.stringPayload.length, required));
+    }
+
+    private void ensureBoolCapacity(int required) {
+        int words = words(required);
+        if (this.boolPayload == null) this.boolPayload = new long[grow(0, words)];
+        else if (this.boolPayload.length < words) this.boolPayload = Arrays.copyOf(this.boolPayload,
+                grow(this.boolPayload.length, words));
+    }
+
+    /**
+     * Number of longs needed to hold a bitset of the given size
+     */
+    static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    static boolean getBit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0L;
+    }
+
+    static void setBit(long[] bits, int index, boolean value) {
+        if (value) bits[index >>> 6] |= 1L << index;
+        else bits[index >>> 6] &= ~(1L << index);
+    }
+
+    private static void copyBits(long[] src, int srcPos, long[] dest, int destPos, int length) {
+        for (int i = 0; i < length; i++)
+            setBit(dest,
+                    destPos + i,
+                    getBit(src,
+                            srcPos + i));
+    }
+
+    private void ensureDoubleCapacity(int required) {
+        if (this.doublePayload == null) this.doublePayload = new double[grow(0, required)];
+        else if (this.doublePayload.length < required) this.doublePayload = Arrays.copyOf(this.doublePayload,
+                grow(this.doublePayload.length, required));
+    }
+
+    /**
+     * Checks whether any values are held by this payload
+     *
+     * @return true if every section is empty
+     */
+    public boolean isEmpty() {
+        return this.getIntSize() == 0 && this.getFloatSize() == 0
+                && this.getStringSize() == 0 && this.getBoolSize() == 0
+                && this.getDoubleSize() == 0;
+    }
+
+    /**
+     * Encode the payload into the ByteBuf stream
+     * <p/>
+     * A section bitmask is followed by each non empty section as a varint
+     * size and its values, ints are zigzag varints and booleans are packed
+     * eight to a byte
+     *
+     * @param data the buffer to encode into
+     */
+    public void writeData(ByteBuf data) {
+        int sections = 0;
+        if (this.getIntSize() > 0) sections |= SECTION_INT;
+        if (this.getFloatSize() > 0) sections |= SECTION_FLOAT;
+        if (this.getStringSize() > 0) sections |= SECTION_STRING;
+        if (this.getBoolSize() > 0) sections |= SECTION_BOOL;
+        if (this.getDoubleSize() > 0) sections |= SECTION_DOUBLE;
+        data.writeByte(sections);
+
+        if ((sections & SECTION_INT) != 0) {
+            ByteBufHelper.writeVarInt(data,
+                    this.getIntSize());
+            for (int i = 0; i < this.getIntSize(); i++)
+                ByteBufHelper.writeSignedVarInt(data,
+                        this.getIntPayload(i));
+        }
+        if ((sections & SECTION_FLOAT) != 0) {
+            ByteBufHelper.writeVarInt(data,
+                    this.getFloatSize());
+            for (int i = 0; i < this.getFloatSize(); i++)
+                data.writeFloat(this.getFloatPayload(i));
+        }
+        if ((sections & SECTION_STRING) != 0) {
+            ByteBufHelper.writeVarInt(data,
+                    this.getStringSize());
+            for (int i = 0; i < this.getStringSize(); i++)
+                ByteBufUtils.writeUTF8String(data,
+                        this.getStringPayload(i));
+        }
+        if ((sections & SECTION_BOOL) != 0) {
+            ByteBufHelper.writeVarInt(data,
+                    this.getBoolSize());
+            int bytes = (this.getBoolSize() + 7) >>> 3;
+            for (int i = 0; i < bytes; i++)
+                data.writeByte(this.getBoolByte(i));
+        }
+        if ((sections & SECTION_DOUBLE) != 0) {
+            ByteBufHelper.writeVarInt(data,
+                    this.getDoubleSize());
+            for (int i = 0; i < this.getDoubleSize(); i++)
+                data.writeDouble(this.getDoublePayload(i));
+        }
+    }
+
+    /**
+     * Retrieves eight packed boolean values, the lowest bit first
+     *
+     * @param index the index of the byte
+     * @return the packed byte
+     */
+    protected int getBoolByte(int index) {
+        return (int) (this.boolPayload[index >>> 3] >>> ((index & 7) << 3)) & 0xFF;
+    }
+
+    /**
+     * Checks whether another payload holds as many values in each section
+     *
+     * @param other the payload to compare to
+     * @return true if a delta between the two payloads can be written
+     */
+    public boolean hasSameShape(PacketPayload other) {
+        return other != null && this.getIntSize() == other.getIntSize()
+                && this.getFloatSize() == other.getFloatSize()
+                && this.getStringSize() == other.getStringSize()
+                && this.getBoolSize() == other.getBoolSize()
+                && this.getDoubleSize() == other.getDoubleSize();
+    }
+
+    /**
+     * Encode only the values that differ from a payload of the same shape
+     * <p/>
+     * A bitmap with a bit per value in section order marks the changed
+     * values, which follow in the same encoding as {@link #writeData(ByteBuf)}.
+     * Changed booleans are flipped and carry no value
+     *
+     * @param base the payload the receiver already holds
+     * @param data the buffer to encode into
+     */
+    public void writeDelta(PacketPayload base, ByteBuf data) {
+        int total = this.getIntSize() + this.getFloatSize() + this.getStringSize()
+                + this.getBoolSize() + this.getDoubleSize();
+        long[] changed = new long[words(total)];
+        int bit = 0;
+        for (int i = 0; i < this.getIntSize(); i++, bit++)
+            if (this.getIntPayload(i) != base.getIntPayload(i)) setBit(changed,
+                    bit,
+                    true);
+        for (int i = 0; i < this.getFloatSize(); i++, bit++)
+            if (Float.floatToIntBits(this.getFloatPayload(i)) != Float.floatToIntBits(base.getFloatPayload(i)))
+                setBit(changed,
+                        bit,
+                        true);
+        for (int i = 0; i < this.getStringSize(); i++, bit++)
+            if (!this.getStringPayload(i).equals(base.getStringPayload(i))) setBit(changed,
+                    bit,
+                    true);
+        for (int i = 0; i < this.getBoolSize(); i++, bit++)
+            if (this.getBoolPayload(i) != base.getBoolPayload(i)) setBit(changed,
+                    bit,
+                    true);
+        for (int i = 0; i < this.getDoubleSize(); i++, bit++)
+            if (Double.doubleToLongBits(this.getDoublePayload(i)) != Double.doubleToLongBits(base.getDoublePayload(i)))
+                setBit(changed,
+                        bit,
+                        true);
+
+        int bytes = (total + 7) >>> 3;
+        for (int i = 0; i < bytes; i++)
+            data.writeByte((int) (changed[i >>> 3] >>> ((i & 7) << 3)));
+
+        bit = 0;
+        for (int i = 0; i < this.getIntSize(); i++)
+            if (getBit(changed, bit++)) ByteBufHelper.writeSignedVarInt(data,
+                    this.getIntPayload(i));
+        for (int i = 0; i < this.getFloatSize(); i++)
+            if (getBit(changed, bit++)) data.writeFloat(this.getFloatPayload(i));
+        for (int i = 0; i < this.getStringSize(); i++)
+            if (getBit(changed, bit++)) ByteBufUtils.writeUTF8String(data,
+                    this.getStringPayload(i));
+        bit += this.getBoolSize();
+        for (int i = 0; i < this.getDoubleSize(); i++)
+            if (getBit(changed, bit++)) data.writeDouble(this.getDoublePayload(i));
+    }
+
+    /**
+     * Decode a delta written by {@link #writeDelta(PacketPayload, ByteBuf)}
+     *
+     * @param base the payload the delta was written against
+     * @param data the buffer to decode from
+     * @return a new payload, the base is left unchanged
+     */
+    public static PacketPayload readDelta(PacketPayload base, ByteBuf data) {
+        PacketPayload payload = base.copy();
+        int total = payload.intSize + payload.floatSize + payload.stringSize
+                + payload.boolSize + payload.doubleSize;
+        long[] changed = new long[words(total)];
+        int bytes = (total + 7) >>> 3;
+        for (int i = 0; i < bytes; i++)
+            changed[i >>> 3] |= (long) data.readUnsignedByte() << ((i & 7) << 3);
+
+        int bit = 0;
+        for (int i = 0; i < payload.intSize; i++)
+            if (getBit(changed, bit++)) payload.intPayload[i] = ByteBufHelper.readSignedVarInt(data);
+        for (int i = 0; i < payload.floatSize; i++)
+            if (getBit(changed, bit++)) payload.floatPayload[i] = data.readFloat();
+        for (int i = 0; i < payload.stringSize; i++)
+            if (getBit(changed, bit++)) payload.stringPayload[i] = ByteBufUtils.readUTF8String(data);
+        for (int i = 0; i < payload.boolSize; i++)
+            if (getBit(changed, bit++)) setBit(payload.boolPayload,
+                    i,
+                    !getBit(payload.boolPayload,
+                            i));
+        for (int i = 0; i < payload.doubleSize; i++)
+            if (getBit(changed, bit++)) payload.doublePayload[i] = data.readDouble();
+        return payload;
+    }
+
+    /**
+     * Decode the payload from the ByteBuf stream replacing any held values
+     *
+     * @param data the buffer to decode from
+     */
+    public void readData(ByteBuf data) {
+        int sections = data.readUnsignedByte();
+
+        this.intSize = (sections & SECTION_INT) != 0 ? ByteBufHelper.readVarInt(data) : 0;
+        this.intPayload = new int[this.intSize];
+        for (int i = 0; i < this.intSize; i++)
+            this.intPayload[i] = ByteBufHelper.readSignedVarInt(data);
+
+        this.floatSize = (sections & SECTION_FLOAT) != 0 ? ByteBufHelper.readVarInt(data) : 0;
+        this.floatPayload = new float[this.floatSize];
+        for (int i = 0; i < this.floatSize; i++)
+            this.floatPayload[i] = data.readFloat();
+
+        this.stringSize = (sections & SECTION_STRING) != 0 ? ByteBufHelper.readVarInt(data) : 0;
+        this.stringPayload = new String[this.stringSize];
+        for (int i = 0; i < this.stringSize; i++)
+            this.stringPayload[i] = ByteBufUtils.readUTF8String(data);
+
+        this.boolSize = (sections & SECTION_BOOL) != 0 ? ByteBufHelper.readVarInt(data) : 0;
+        this.boolPayload = new long[words(this.boolSize)];
+        int bytes = (this.boolSize + 7) >>> 3;
+        for (int i = 0; i < bytes; i++)
+            this.boolPayload[i >>> 3] |= (long) data.readUnsignedByte() << ((i & 7) << 3);
+
+        this.doubleSize = (sections & SECTION_DOUBLE) != 0 ? ByteBufHelper.readVarInt(data) : 0;
+        this.doublePayload = new double[this.doubleSize];
+        for (int i = 0; i < this.doubleSize; i++)
+            this.doublePayload[i] = data.readDouble();
+    }
+
+    /**
+     * Creates a detached copy of this payload
+     *
+     * @return a new PacketPayload holding the same values
+     */
+    public PacketPayload copy() {
+        return new PacketPayload(
+                this.intPayload != null ? Arrays.copyOf(this.intPayload, this.intSize) : new int[0], this.intSize,
+                this.floatPayload != null ? Arrays.copyOf(this.floatPayload, this.floatSize) : new float[0], this.floatSize,
+                this.stringPayload != null ? Arrays.copyOf(this.stringPayload, this.stringSize) : new String[0], this.stringSize,
+                this.boolPayload != null ? Arrays.copyOf(this.boolPayload, words(this.boolSize)) : new long[0], this.boolSize,
+                this.doublePayload != null ? Arrays.copyOf(this.doublePayload, this.doubleSize) : new double[0], this.doubleSize);
+    }
+
+    /**
+     * Retrieves a payload whose values are held in arrays
+     *
+     * @return this payload, views return a decoded copy
+     */
+    protected PacketPayload materialize() {
+        return this;
+    }
+
+    /**
+     * Releases any resources held by this payload, a plain payload holds none
+     */
+    public void release() {
+    }
+
+    /**
+     * Creates a builder for assembling a payload one value at a time
+     *
+     * @return a new Builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Growable payload builder
+     * <p/>
+     * Each typed section doubles its capacity as needed so appending n values
+     * costs O(n) copies overall. {@link #build()} hands the arrays over to the
+     * payload without trimming them, after which the builder starts afresh.
+     */
+    public static class Builder {
+        private int[] intPayload;
+        private float[] floatPayload;
+        private String[] stringPayload;
+        private long[] boolPayload;
+        private double[] doublePayload;
+
+        private int intSize;
+        private int floatSize;
+        private int stringSize;
+        private int boolSize;
+        private int doubleSize;
+
+        public Builder() {
+        }
+
+        /**
+         * Creates a builder with room for the expected number of values
+         *
+         * @param intSize    The expected number of int values
+         * @param floatSize  The expected number of float values
+         * @param stringSize The expected number of String values
+         * @param boolSize   The expected number of boolean values
+         * @param doubleSize The expected number of double values
+         */
+        public Builder(int intSize, int floatSize, int stringSize, int boolSize, int doubleSize) {
+            this.intPayload = new int[intSize];
+            this.floatPayload = new float[floatSize];
+            this.stringPayload = new String[stringSize];
+            this.boolPayload = new long[words(boolSize)];
+            this.doublePayload = new double[doubleSize];
+        }
+
+        public Builder putInt(int value) {
+            if (this.intPayload == null || this.intSize == this.intPayload.length) {
+                this.intPayload = this.intPayload == null ? new int[grow(0, 1)] : Arrays.copyOf(this.intPayload,
+                        grow(this.intPayload.length, this.intSize + 1));
+            }
+            this.intPayload[this.intSize++] = value;
+            return this;
+        }
+
+        public Builder putFloat(float value) {
+            if (this.floatPayload == null || this.floatSize == this.floatPayload.length) {
+                this.floatPayload = this.floatPayload == null ? new float[grow(0, 1)] : Arrays.copyOf(this.floatPayload,
+                        grow(this.floatPayload.length, this.floatSize + 1));
+            }
+            this.floatPayload[this.floatSize++] = value;
+            return this;
+        }
+
+        public Builder putString(String value) {
+            if (this.stringPayload == null || this.stringSize == this.stringPayload.length) {
+                this.stringPayload = this.stringPayload == null ? new String[grow(0, 1)] : Arrays.copyOf(this.stringPayload,
+                        grow(this.stringPayload.length, this.stringSize + 1));
+            }
+            this.stringPayload[this.stringSize++] = value;
+            return this;
+        }
+
+        public Builder putBool(boolean value) {
+            if (this.boolPayload == null || this.boolSize == this.boolPayload.length << 6) {
+                this.boolPayload = this.boolPayload == null ? new long[1] : Arrays.copyOf(this.boolPayload,
+                        grow(this.boolPayload.length, this.boolPayload.length + 1));
+            }
+            setBit(this.boolPayload,
+                    this.boolSize++,
+                    value);
+            return this;
+        }
+
+        public Builder putDouble(double value) {
+            if (this.doublePayload == null || this.doubleSize == this.doublePayload.length) {
+                this.doublePayload = this.doublePayload == null ? new double[grow(0, 1)] : Arrays.copyOf(this.doublePayload,
+                        grow(this.doublePayload.length, this.doubleSize + 1));
+            }
+            this.doublePayload[this.doubleSize++] = value;
+            return this;
+        }
+
+        /**
+         * Retrieves the current write positions of each section
+         *
+         * @return the number of values put so far per type
+         */
+        public IndexInPayload getIndex() {
+            return new IndexInPayload(this.intSize, this.floatSize, this.stringSize, this.boolSize, this.doubleSize);
+        }
+
+        /**
+         * Creates the payload from the values put so far
+         * <p/>
+         * The backing arrays are handed over without copying
+         *
+         * @return the new PacketPayload
+         */
+        public PacketPayload build() {
+            PacketPayload payload = new PacketPayload(
+                    this.intPayload != null ? this.intPayload : new int[0], this.intSize,
+                    this.floatPayload != null ? this.floatPayload : new float[0], this.floatSize,
+                    this.stringPayload != null ? this.stringPayload : new String[0], this.stringSize,
+                    this.boolPayload != null ? this.boolPayload : new long[0], this.boolSize,
+                    this.doublePayload != null ? this.doublePayload : new double[0], this.doubleSize);
+            this.intPayload = null;
+            this.floatPayload = null;
+            this.stringPayload = null;
+            this.boolPayload = null;
+            this.doublePayload = null;
+            this.intSize = this.floatSize = this.stringSize = this.boolSize = this.doubleSize = 0;
+            return payload;
+        }
     }
 }
@@ -0,0 +1,217 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Fixed size window over a range of each section of another payload
+ * <p/>
+ * Values are read from and written through to the parent payload, nothing is
+ * copied. Slices of slices refer to the underlying payload directly.
+ *
+ * @see PacketPayload#slice(IndexInPayload, IndexInPayload)
+ */
+public class PacketPayloadSlice extends PacketPayload {
+
+    private final PacketPayload parent;
+
+    private final int intOffset;
+    private final int floatOffset;
+    private final int stringOffset;
+    private final int boolOffset;
+    private final int doubleOffset;
+
+    private final int intSize;
+    private final int floatSize;
+    private final int stringSize;
+    private final int boolSize;
+    private final int doubleSize;
+
+    PacketPayloadSlice(PacketPayload parent, IndexInPayload from, IndexInPayload to) {
+        this.intSize = range(from.intIndex, to.intIndex, parent.getIntSize());
+        this.floatSize = range(from.floatIndex, to.floatIndex, parent.getFloatSize());
+        this.stringSize = range(from.stringIndex, to.stringIndex, parent.getStringSize());
+        this.boolSize = range(from.boolIndex, to.boolIndex, parent.getBoolSize());
+        this.doubleSize = range(from.doubleIndex, to.doubleIndex, parent.getDoubleSize());
+        if (parent instanceof PacketPayloadSlice) {
+            PacketPayloadSlice slice = (PacketPayloadSlice) parent;
+            this.parent = slice.parent;
+            this.intOffset = slice.intOffset + from.intIndex;
+            this.floatOffset = slice.floatOffset + from.floatIndex;
+            this.stringOffset = slice.stringOffset + from.stringIndex;
+            this.boolOffset = slice.boolOffset + from.boolIndex;
+            this.doubleOffset = slice.doubleOffset + from.doubleIndex;
+        } else {
+            this.parent = parent;
+            this.intOffset = from.intIndex;
+            this.floatOffset = from.floatIndex;
+            this.stringOffset = from.stringIndex;
+            this.boolOffset = from.boolIndex;
+            this.doubleOffset = from.doubleIndex;
+        }
+    }
+
+    private static int range(int from, int to, int size) {
+        if (from < 0 || to < from || to > size) {
+            throw new IllegalArgumentException("Slice [" + from + ", " + to + ") is outside a section of " + size + " values");
+        }
+        return to - from;
+    }
+
+    @Override
+    public int getIntSize() {
+        return this.intSize;
+    }
+
+    @Override
+    public int getFloatSize() {
+        return this.floatSize;
+    }
+
+    @Override
+    public int getStringSize() {
+        return this.stringSize;
+    }
+
+    @Override
+    public int getBoolSize() {
+        return this.boolSize;
+    }
+
+    @Override
+    public int getDoubleSize() {
+        return this.doubleSize;
+    }
+
+    @Override
+    public int getIntPayload(int index) {
+        if (index < 0 || index >= this.intSize) return 0;
+        return this.parent.getIntPayload(this.intOffset + index);
+    }
+
+    @Override
+    public float getFloatPayload(int index) {
+        if (index < 0 || index >= this.floatSize) return 0;
+        return this.parent.getFloatPayload(this.floatOffset + index);
+    }
+
+    @Override
+    public String getStringPayload(int index) {
+        if (index < 0 || index >= this.stringSize) return "null";
+        return this.parent.getStringPayload(this.stringOffset + index);
+    }
+
+    @Override
+    public boolean getBoolPayload(int index) {
+        if (index < 0 || index >= this.boolSize) return false;
+        return this.parent.getBoolPayload(this.boolOffset + index);
+    }
+
+    @Override
+    public double getDoublePayload(int index) {
+        if (index < 0 || index >= this.doubleSize) return 0;
+        return this.parent.getDoublePayload(this.doubleOffset + index);
+    }
+
+    @Override
+    public boolean setIntPayload(int index, int newInt) {
+        return index >= 0 && index < this.intSize && this.parent.setIntPayload(this.intOffset + index,
+                newInt);
+    }
+
+    @Override
+    public boolean setFloatPayload(int index, float newFloat) {
+        return index >= 0 && index < this.floatSize && this.parent.setFloatPayload(this.floatOffset + index,
+                newFloat);
+    }
+
+    @Override
+    public boolean setStringPayload(int index, String newString) {
+        return index >= 0 && index < this.stringSize && this.parent.setStringPayload(this.stringOffset + index,
+                newString);
+    }
+
+    @Override
+    public boolean setBoolPayload(int index, boolean newBool) {
+        return index >= 0 && index < this.boolSize && this.parent.setBoolPayload(this.boolOffset + index,
+                newBool);
+    }
+
+    @Override
+    public boolean setDoublePayload(int index, double newDouble) {
+        return index >= 0 && index < this.doubleSize && this.parent.setDoublePayload(this.doubleOffset + index,
+                newDouble);
+    }
+
+    /**
+     * Packs from the parent's values, the slice need not start on a byte
+     */
+    @Override
+    protected int getBoolByte(int index) {
+        int value = 0;
+        int start = index << 3;
+        int end = Math.min(start + 8,
+                this.boolSize);
+        for (int i = start; i < end; i++)
+            if (this.parent.getBoolPayload(this.boolOffset + i)) value |= 1 << (i - start);
+        return value;
+    }
+
+    @Override
+    public void append(PacketPayload other) {
+        throw new UnsupportedOperationException("PacketPayloadSlice is fixed size");
+    }
+
+    @Override
+    public void append(int[] other) {
+        throw new UnsupportedOperationException("PacketPayloadSlice is fixed size");
+    }
+
+    @Override
+    public void addIntValue(int newValue) {
+        throw new UnsupportedOperationException("PacketPayloadSlice is fixed size");
+    }
+
+    @Override
+    public void readData(ByteBuf data) {
+        throw new UnsupportedOperationException("PacketPayloadSlice is fixed size");
+    }
+
+    @Override
+    public PacketPayload copy() {
+        Builder builder = new Builder(this.intSize, this.floatSize, this.stringSize, this.boolSize, this.doubleSize);
+        for (int i = 0; i < this.intSize; i++)
+            builder.putInt(this.getIntPayload(i));
+        for (int i = 0; i < this.floatSize; i++)
+            builder.putFloat(this.getFloatPayload(i));
+        for (int i = 0; i < this.stringSize; i++)
+            builder.putString(this.getStringPayload(i));
+        for (int i = 0; i < this.boolSize; i++)
+            builder.putBool(this.getBoolPayload(i));
+        for (int i = 0; i < this.doubleSize; i++)
+            builder.putDouble(this.getDoublePayload(i));
+        return builder.build();
+    }
+
+    @Override
+    protected PacketPayload materialize() {
+        return this.copy();
+    }
+
+    /**
+     * The values belong to the parent, which is released separately
+     */
+    @Override
+    public void release() {
+    }
+}
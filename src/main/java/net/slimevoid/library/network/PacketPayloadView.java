@@ -0,0 +1,245 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+
+/**
+ * Read only payload backed by the encoded bytes of an incoming packet
+ * <p/>
+ * Values are decoded on demand from the retained buffer slice instead of
+ * being copied into arrays up front. Float, double and packed boolean values
+ * are read straight from their offset, the varint and String sections are
+ * indexed the first time they are read.
+ * <p/>
+ * The view is only valid until {@link #release()} is called, which the
+ * {@link net.slimevoid.library.network.executor.PacketExecutor} does once
+ * the handler returns, as are any slices taken from it. Use {@link #copy()}
+ * to keep the values beyond that.
+ *
+ * @see PacketUpdate#isPayloadLazy()
+ */
+public class PacketPayloadView extends PacketPayload {
+
+    private ByteBuf buffer;
+
+    private int intSize;
+    private int floatSize;
+    private int stringSize;
+    private int boolSize;
+    private int doubleSize;
+
+    private int intOffset;
+    private int floatOffset;
+    private int stringOffset;
+    private int boolOffset;
+    private int doubleOffset;
+
+    /**
+     * Decoded int values, varints have no fixed offset
+     */
+    private int[] intValues;
+
+    /**
+     * Offsets of each String within the buffer
+     */
+    private int[] stringOffsets;
+
+    /**
+     * Creates a view over the encoded payload
+     * <p/>
+     * Only the section headers are read here, ownership of one reference to
+     * the buffer passes to the view
+     *
+     * @param buffer a retained slice holding exactly one encoded payload
+     */
+    public PacketPayloadView(ByteBuf buffer) {
+        this.buffer = buffer;
+        ByteBuf data = buffer.duplicate();
+        int sections = data.readUnsignedByte();
+        if ((sections & SECTION_INT) != 0) {
+            this.intSize = ByteBufHelper.readVarInt(data);
+            this.intOffset = data.readerIndex();
+            for (int i = 0; i < this.intSize; i++)
+                ByteBufHelper.readVarInt(data);
+        }
+        if ((sections & SECTION_FLOAT) != 0) {
+            this.floatSize = ByteBufHelper.readVarInt(data);
+            this.floatOffset = data.readerIndex();
+            data.skipBytes(this.floatSize * 4);
+        }
+        if ((sections & SECTION_STRING) != 0) {
+            this.stringSize = ByteBufHelper.readVarInt(data);
+            this.stringOffset = data.readerIndex();
+            for (int i = 0; i < this.stringSize; i++)
+                data.skipBytes(ByteBufHelper.readVarInt(data));
+        }
+        if ((sections & SECTION_BOOL) != 0) {
+            this.boolSize = ByteBufHelper.readVarInt(data);
+            this.boolOffset = data.readerIndex();
+            data.skipBytes((this.boolSize + 7) >>> 3);
+        }
+        if ((sections & SECTION_DOUBLE) != 0) {
+            this.doubleSize = ByteBufHelper.readVarInt(data);
+            this.doubleOffset = data.readerIndex();
+        }
+    }
+
+    @Override
+    public int getIntSize() {
+        return this.intSize;
+    }
+
+    @Override
+    public int getFloatSize() {
+        return this.floatSize;
+    }
+
+    @Override
+    public int getStringSize() {
+        return this.stringSize;
+    }
+
+    @Override
+    public int getBoolSize() {
+        return this.boolSize;
+    }
+
+    @Override
+    public int getDoubleSize() {
+        return this.doubleSize;
+    }
+
+    @Override
+    public int getIntPayload(int index) {
+        if (index < 0 || index >= this.intSize) return 0;
+        if (this.intValues == null) {
+            ByteBuf data = this.buffer.duplicate();
+            data.readerIndex(this.intOffset);
+            this.intValues = new int[this.intSize];
+            for (int i = 0; i < this.intSize; i++)
+                this.intValues[i] = ByteBufHelper.readSignedVarInt(data);
+        }
+        return this.intValues[index];
+    }
+
+    @Override
+    public float getFloatPayload(int index) {
+        if (index < 0 || index >= this.floatSize) return 0;
+        return this.buffer.getFloat(this.floatOffset + (index << 2));
+    }
+
+    @Override
+    public String getStringPayload(int index) {
+        if (index < 0 || index >= this.stringSize) return "null";
+        ByteBuf data = this.buffer.duplicate();
+        if (this.stringOffsets == null) {
+            data.readerIndex(this.stringOffset);
+            this.stringOffsets = new int[this.stringSize];
+            for (int i = 0; i < this.stringSize; i++) {
+                this.stringOffsets[i] = data.readerIndex();
+                data.skipBytes(ByteBufHelper.readVarInt(data));
+            }
+        }
+        data.readerIndex(this.stringOffsets[index]);
+        return ByteBufUtils.readUTF8String(data);
+    }
+
+    @Override
+    public boolean getBoolPayload(int index) {
+        if (index < 0 || index >= this.boolSize) return false;
+        return (this.buffer.getByte(this.boolOffset + (index >>> 3)) & (1 << (index & 7))) != 0;
+    }
+
+    @Override
+    public double getDoublePayload(int index) {
+        if (index < 0 || index >= this.doubleSize) return 0;
+        return this.buffer.getDouble(this.doubleOffset + (index << 3));
+    }
+
+    @Override
+    public boolean setIntPayload(int index, int newInt) {
+        return false;
+    }
+
+    @Override
+    public boolean setFloatPayload(int index, float newFloat) {
+        return false;
+    }
+
+    @Override
+    public boolean setStringPayload(int index, String newString) {
+        return false;
+    }
+
+    @Override
+    public boolean setBoolPayload(int index, boolean newBool) {
+        return false;
+    }
+
+    @Override
+    public boolean setDoublePayload(int index, double newDouble) {
+        return false;
+    }
+
+    @Override
+    public void append(PacketPayload other) {
+        throw new UnsupportedOperationException("PacketPayloadView is read only");
+    }
+
+    @Override
+    public void append(int[] other) {
+        throw new UnsupportedOperationException("PacketPayloadView is read only");
+    }
+
+    @Override
+    public void addIntValue(int newValue) {
+        throw new UnsupportedOperationException("PacketPayloadView is read only");
+    }
+
+    @Override
+    public PacketPayload copy() {
+        PacketPayload payload = new PacketPayload(0, 0, 0, 0, 0);
+        payload.readData(this.buffer.duplicate());
+        return payload;
+    }
+
+    @Override
+    protected PacketPayload materialize() {
+        return this.copy();
+    }
+
+    /**
+     * The encoded bytes are written through unchanged
+     */
+    @Override
+    public void writeData(ByteBuf data) {
+        data.writeBytes(this.buffer,
+                this.buffer.readerIndex(),
+                this.buffer.readableBytes());
+    }
+
+    @Override
+    public void readData(ByteBuf data) {
+        throw new UnsupportedOperationException("PacketPayloadView is read only");
+    }
+
+    @Override
+    public void release() {
+        if (this.buffer != null) {
+            this.buffer.release();
+            this.buffer = null;
+        }
+    }
+}
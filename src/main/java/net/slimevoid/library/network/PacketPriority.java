@@ -0,0 +1,64 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+/**
+ * Send lanes of a player's outbound queue
+ * <p/>
+ * At flush time the lanes are drained in turns, each lane sending up to its
+ * weight in frames per turn, so interactive packets go out first and bulk
+ * transfers only take what is left.
+ */
+public enum PacketPriority {
+    /**
+     * GUI and player notifications
+     */
+    HIGH(4),
+    /**
+     * Tile, entity and other updates
+     */
+    NORMAL(2),
+    /**
+     * Fragments of large packets
+     */
+    BULK(1);
+
+    private final int weight;
+
+    PacketPriority(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Retrieves the number of frames sent from this lane per turn
+     */
+    public int getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Retrieves the default lane for a packet id from {@link PacketIds}
+     *
+     * @param packetId the packet id
+     * @return the lane
+     */
+    public static PacketPriority forPacketId(int packetId) {
+        switch (packetId) {
+            case PacketIds.LOGIN:
+            case PacketIds.GUI:
+            case PacketIds.PLAYER:
+                return HIGH;
+            default:
+                return NORMAL;
+        }
+    }
+}
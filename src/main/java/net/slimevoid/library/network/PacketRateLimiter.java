@@ -0,0 +1,231 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import com.google.common.collect.Maps;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+import net.slimevoid.library.network.executor.PacketExecutionQueue;
+import net.slimevoid.library.network.executor.PacketExecutor;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the packets each player can push through a channel
+ * <p/>
+ * Every player has a token bucket per packet id. A packet takes one token,
+ * tokens refill at a steady rate up to the burst size. Packets arriving with
+ * no token left are either dropped or deferred to a queue kept with their
+ * bucket, bounded per player, that is retried on later server ticks. A packet
+ * id over its limit does not hold back the packets of other ids.
+ */
+public class PacketRateLimiter {
+
+    private final ConcurrentMap<UUID, PlayerLimits> players = Maps.newConcurrentMap();
+
+    private final Map<Integer, int[]> limits = Maps.newConcurrentMap();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Overrides the configured limit for one packet id
+     *
+     * @param packetId  the packet id
+     * @param burst     the packets allowed in a burst
+     * @param perSecond the refill rate, 0 for no limit
+     */
+    public void setLimit(int packetId, int burst, int perSecond) {
+        this.limits.put(packetId,
+                new int[] { burst, perSecond });
+    }
+
+    /**
+     * Checks an incoming packet against the sender's allowance
+     * <p/>
+     * Packets over the limit are deferred or released and dropped
+     *
+     * @param executor     the executor for the packet
+     * @param packet       the packet
+     * @param ctx          the context the packet arrived in
+     * @param entityplayer the sender
+     * @return true if the packet may be executed now
+     */
+    public <REQ extends PacketUpdate> boolean tryAcquire(PacketExecutor<REQ, ?> executor, REQ packet, MessageContext ctx, EntityPlayerMP entityplayer) {
+        PlayerLimits limits = this.getLimits(entityplayer);
+        TokenBucket bucket = limits.getBucket(packet.getPacketId());
+        // Keep ordering, nothing overtakes packets of its id already deferred
+        if (bucket.deferred.isEmpty() && bucket.tryAcquire()) {
+            this.accepted.incrementAndGet();
+            return true;
+        }
+        if (ConfigurationLib.rateLimitDefer && limits.deferredCount.get() < ConfigurationLib.maxDeferredPackets) {
+            limits.deferredCount.incrementAndGet();
+            bucket.deferred.add(new DeferredPacket<REQ>(executor, packet, ctx));
+            this.deferred.incrementAndGet();
+        } else {
+            packet.release();
+            this.dropped.incrementAndGet();
+        }
+        return false;
+    }
+
+    /**
+     * Hands deferred packets that now fit within their sender's allowance to
+     * the server execution queue
+     * <p/>
+     * Called at the start of each server tick
+     */
+    public void processDeferred() {
+        for (PlayerLimits limits : this.players.values()) {
+            for (TokenBucket bucket : limits.buckets.values()) {
+                DeferredPacket packet;
+                while ((packet = bucket.deferred.peek()) != null
+                        && bucket.tryAcquire()) {
+                    bucket.deferred.poll();
+                    limits.deferredCount.decrementAndGet();
+                    packet.queue();
+                    this.accepted.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets a player, dropping any packets deferred for them
+     *
+     * @param entityplayer the player leaving
+     */
+    public void removePlayer(EntityPlayerMP entityplayer) {
+        PlayerLimits limits = this.players.remove(entityplayer.getUniqueID());
+        if (limits == null) return;
+        for (TokenBucket bucket : limits.buckets.values()) {
+            DeferredPacket packet;
+            while ((packet = bucket.deferred.poll()) != null) {
+                packet.packet.release();
+                this.dropped.incrementAndGet();
+            }
+        }
+    }
+
+    public long getAccepted() {
+        return this.accepted.get();
+    }
+
+    public long getDeferred() {
+        return this.deferred.get();
+    }
+
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Retrieves the number of packets currently waiting across all players
+     */
+    public int getPending() {
+        int pending = 0;
+        for (PlayerLimits limits : this.players.values()) {
+            pending += limits.deferredCount.get();
+        }
+        return pending;
+    }
+
+    private PlayerLimits getLimits(EntityPlayerMP entityplayer) {
+        UUID uuid = entityplayer.getUniqueID();
+        PlayerLimits limits = this.players.get(uuid);
+        if (limits == null) {
+            limits = new PlayerLimits();
+            PlayerLimits existing = this.players.putIfAbsent(uuid,
+                    limits);
+            if (existing != null) {
+                limits = existing;
+            }
+        }
+        return limits;
+    }
+
+    private class PlayerLimits {
+        private final ConcurrentMap<Integer, TokenBucket> buckets = Maps.newConcurrentMap();
+        private final AtomicInteger deferredCount = new AtomicInteger();
+
+        TokenBucket getBucket(int packetId) {
+            TokenBucket bucket = this.buckets.get(packetId);
+            if (bucket == null) {
+                int[] limit = PacketRateLimiter.this.limits.get(packetId);
+                bucket = limit != null ? new TokenBucket(limit[0], limit[1]) : new TokenBucket(ConfigurationLib.rateLimitBurst, ConfigurationLib.rateLimitPerSecond);
+                TokenBucket existing = this.buckets.putIfAbsent(packetId,
+                        bucket);
+                if (existing != null) {
+                    bucket = existing;
+                }
+            }
+            return bucket;
+        }
+    }
+
+    private static class TokenBucket {
+        private final Queue<DeferredPacket> deferred = new ConcurrentLinkedQueue<DeferredPacket>();
+        private final double burst;
+        private final double perNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int burst, int perSecond) {
+            this.burst = burst;
+            this.perNano = perSecond / 1.0E9D;
+            this.tokens = burst;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized boolean tryAcquire() {
+            if (this.perNano <= 0.0D) return true;
+            long now = System.nanoTime();
+            this.tokens = Math.min(this.burst,
+                    this.tokens + (now - this.lastRefill) * this.perNano);
+            this.lastRefill = now;
+            if (this.tokens >= 1.0D) {
+                this.tokens -= 1.0D;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class DeferredPacket<REQ extends PacketUpdate> {
+        private final PacketExecutor<REQ, ?> executor;
+        private final REQ packet;
+        private final MessageContext ctx;
+
+        DeferredPacket(PacketExecutor<REQ, ?> executor, REQ packet, MessageContext ctx) {
+            this.executor = executor;
+            this.packet = packet;
+            this.ctx = ctx;
+        }
+
+        void queue() {
+            PacketExecutionQueue.getQueue(Side.SERVER).add(this.executor,
+                    this.packet,
+                    this.ctx);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import com.google.common.collect.Maps;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.slimevoid.library.core.SlimevoidCore;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+import net.slimevoid.library.core.lib.CoreLib;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Joins the {@link PacketFragment}s received on a channel back into messages
+ * <p/>
+ * Fragments are copied into a pooled buffer as they arrive, once the last
+ * one is in the message is dispatched as if it had been sent whole. Transfers
+ * are kept per sending player on the server. Declared lengths above the
+ * configured limit are refused, as are transfers beyond the number and bytes
+ * a sender may have pending. Buffers grow as fragments arrive, transfers that
+ * stall are discarded.
+ */
+public class PacketReassembler {
+
+    /**
+     * Key of the transfers received from the server
+     */
+    private static final Object SERVER = new Object();
+
+    /**
+     * Capacity a transfer's buffer starts with before growing
+     */
+    private static final int INITIAL_CAPACITY = 8192;
+
+    private final PacketChannel channel;
+
+    /**
+     * Transfers in progress keyed by the sending player's id, which survives
+     * respawns, or by {@link #SERVER}
+     */
+    private final ConcurrentMap<Object, Pending> transfers = Maps.newConcurrentMap();
+
+    public PacketReassembler(PacketChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Adds a received fragment, dispatching the message it completes
+     *
+     * @param fragment the fragment
+     * @param ctx      the context the fragment arrived in
+     */
+    public void receive(PacketFragment fragment, MessageContext ctx) {
+        Object sender = ctx.side == Side.SERVER ? ctx.getServerHandler().playerEntity.getUniqueID() : SERVER;
+        Pending pending = this.transfers.get(sender);
+        if (pending == null) {
+            pending = new Pending();
+            Pending existing = this.transfers.putIfAbsent(sender,
+                    pending);
+            if (existing != null) {
+                pending = existing;
+            }
+        }
+        Transfer transfer;
+        long now = System.currentTimeMillis();
+        // Fragments from one connection arrive on its network thread in order
+        synchronized (pending) {
+            this.expire(pending,
+                    now);
+            if (fragment.getIndex() == 0) {
+                int length = fragment.getLength();
+                if (length <= 0 || length > ConfigurationLib.maxReassemblyBytes) {
+                    this.discard("Refusing " + length + " byte transfer",
+                            fragment.getTransferId());
+                    return;
+                }
+                pending.remove(fragment.getTransferId());
+                if (pending.transfers.size() >= ConfigurationLib.maxPendingTransfers
+                        || pending.bytes + (long) length > ConfigurationLib.maxPendingReassemblyBytes) {
+                    this.discard("Too many pending transfers, refusing",
+                            fragment.getTransferId());
+                    return;
+                }
+                transfer = new Transfer(fragment.getDiscriminator(),
+                        length);
+                pending.add(fragment.getTransferId(),
+                        transfer);
+            } else {
+                transfer = pending.transfers.get(fragment.getTransferId());
+                if (transfer == null) {
+                    // The start of the transfer was refused or discarded
+                    return;
+                }
+            }
+            ByteBuf data = fragment.getData();
+            if (fragment.getIndex() != transfer.nextIndex
+                    || data.readableBytes() > transfer.length - transfer.data.writerIndex()) {
+                pending.remove(fragment.getTransferId());
+                this.discard("Malformed fragment " + fragment.getIndex() + " of transfer",
+                        fragment.getTransferId());
+                return;
+            }
+            transfer.data.writeBytes(data);
+            transfer.nextIndex++;
+            transfer.lastReceived = now;
+            if (transfer.data.writerIndex() < transfer.length) {
+                return;
+            }
+            pending.transfers.remove(fragment.getTransferId());
+            pending.bytes -= transfer.length;
+        }
+        try {
+            this.channel.dispatch(transfer.discriminator,
+                    transfer.data,
+                    ctx);
+        } finally {
+            transfer.data.release();
+        }
+    }
+
+    /**
+     * Discards the transfers received from a player, or from the server when
+     * the player is null
+     *
+     * @param entityplayer the player
+     */
+    public void removePlayer(EntityPlayerMP entityplayer) {
+        Pending pending = this.transfers.remove(entityplayer != null ? entityplayer.getUniqueID() : SERVER);
+        if (pending != null) {
+            synchronized (pending) {
+                pending.clear();
+            }
+        }
+    }
+
+    /**
+     * Discards the transfers of every sender that have stalled
+     * <p/>
+     * Called once a second from the tick handler, senders still sending
+     * have theirs expired as fragments arrive
+     */
+    public void expire() {
+        long now = System.currentTimeMillis();
+        for (Pending pending : this.transfers.values()) {
+            synchronized (pending) {
+                this.expire(pending,
+                        now);
+            }
+        }
+    }
+
+    /**
+     * Discards the transfers of a sender that have stalled
+     */
+    private void expire(Pending pending, long now) {
+        long timeout = ConfigurationLib.reassemblyTimeoutSeconds * 1000L;
+        if (timeout <= 0L) return;
+        Iterator<Map.Entry<Integer, Transfer>> iterator = pending.transfers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Transfer> entry = iterator.next();
+            Transfer transfer = entry.getValue();
+            if (now - transfer.lastReceived > timeout) {
+                iterator.remove();
+                pending.bytes -= transfer.length;
+                transfer.data.release();
+                this.discard("Expired transfer",
+                        entry.getKey());
+            }
+        }
+    }
+
+    private void discard(String reason, int transferId) {
+        SlimevoidCore.console(CoreLib.MOD_ID,
+                reason + " " + transferId + " on channel " + this.channel.getName(),
+                1);
+    }
+
+    /**
+     * The transfers being reassembled from one sender
+     */
+    private static class Pending {
+        private final Map<Integer, Transfer> transfers = new HashMap<Integer, Transfer>();
+        /**
+         * Declared length of the pending transfers
+         */
+        private long bytes = 0L;
+
+        void add(int transferId, Transfer transfer) {
+            this.transfers.put(transferId,
+                    transfer);
+            this.bytes += transfer.length;
+        }
+
+        void remove(int transferId) {
+            Transfer transfer = this.transfers.remove(transferId);
+            if (transfer != null) {
+                this.bytes -= transfer.length;
+                transfer.data.release();
+            }
+        }
+
+        void clear() {
+            for (Transfer transfer : this.transfers.values()) {
+                transfer.data.release();
+            }
+            this.transfers.clear();
+            this.bytes = 0L;
+        }
+    }
+
+    /**
+     * A message being reassembled
+     */
+    private static class Transfer {
+        private final int discriminator;
+        private final int length;
+        private final ByteBuf data;
+        private int nextIndex = 0;
+        private long lastReceived = System.currentTimeMillis();
+
+        Transfer(int discriminator, int length) {
+            this.discriminator = discriminator;
+            this.length = length;
+            this.data = PooledByteBufAllocator.DEFAULT.heapBuffer(Math.min(length,
+                            INITIAL_CAPACITY),
+                    length);
+        }
+    }
+}
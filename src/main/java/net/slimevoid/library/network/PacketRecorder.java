@@ -0,0 +1,251 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraftforge.fml.relauncher.Side;
+import net.slimevoid.library.core.SlimevoidCore;
+import net.slimevoid.library.core.lib.CoreLib;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Captures received packets to a binary log for {@link PacketReplay}
+ * <p/>
+ * The log starts with the magic "SVPR" and a format version byte. Each
+ * record is a type byte followed by either a channel definition, a varint id
+ * and the UTF-8 name of a channel the first time it is seen, or a packet,
+ * the nanoseconds since the previous packet as a varlong, the channel id and
+ * discriminator as varints, the receiving side as a byte and the length
+ * prefixed bytes the packet was decoded from.
+ * <p/>
+ * Network threads only copy the bytes and queue them, the log is written by
+ * a thread of its own. Packets arriving while the queue is full are counted
+ * and left out of the log.
+ */
+public class PacketRecorder implements Runnable {
+
+    static final byte[] MAGIC = {'S', 'V', 'P', 'R'};
+
+    static final int VERSION = 1;
+
+    static final int RECORD_CHANNEL = 0;
+
+    static final int RECORD_PACKET = 1;
+
+    /**
+     * Most packets waiting to be written
+     */
+    private static final int MAX_PENDING = 16384;
+
+    /**
+     * Queued after the last packet to stop the writer
+     */
+    private static final Record END = new Record(null, 0, null, null, 0L);
+
+    private static final AtomicReference<PacketRecorder> active = new AtomicReference<PacketRecorder>();
+
+    private final File file;
+
+    private final OutputStream out;
+
+    private final BlockingQueue<Record> pending = new LinkedBlockingQueue<Record>(MAX_PENDING);
+
+    private final Thread writer;
+
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    private final Map<String, Integer> channels = new HashMap<String, Integer>();
+
+    private long lastTime = System.nanoTime();
+
+    private volatile int packets = 0;
+
+    private PacketRecorder(File file) throws IOException {
+        this.file = file;
+        this.out = new BufferedOutputStream(new FileOutputStream(file));
+        this.out.write(MAGIC);
+        this.out.write(VERSION);
+        this.writer = new Thread(this, "Packet capture writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Starts capturing received packets, replacing any capture in progress
+     *
+     * @param file the log to write
+     * @throws IOException if the log cannot be created
+     */
+    public static synchronized void start(File file) throws IOException {
+        stop();
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        active.set(new PacketRecorder(file));
+    }
+
+    /**
+     * Stops the capture in progress, if any, once the packets queued so far
+     * are written
+     *
+     * @return the number of packets captured
+     */
+    public static synchronized int stop() {
+        PacketRecorder recorder = active.getAndSet(null);
+        return recorder != null ? recorder.finish() : 0;
+    }
+
+    public static boolean isRecording() {
+        return active.get() != null;
+    }
+
+    /**
+     * Records the bytes a packet is decoded from
+     *
+     * @param channel       the channel of the packet
+     * @param discriminator the index of the packet on the channel
+     * @param side          the side that received the packet
+     * @param data          the buffer the packet is read from
+     * @param index         the index of the first byte of the packet
+     * @param length        the number of bytes of the packet
+     */
+    public static void record(String channel, int discriminator, Side side, ByteBuf data, int index, int length) {
+        PacketRecorder recorder = active.get();
+        if (recorder != null) {
+            byte[] bytes = new byte[length];
+            data.getBytes(index,
+                    bytes);
+            if (!recorder.pending.offer(new Record(channel, discriminator, side, bytes, System.nanoTime()))) {
+                recorder.dropped.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            Record record;
+            while ((record = this.pending.take()) != END) {
+                this.write(record,
+                        buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            SlimevoidCore.console(CoreLib.MOD_ID,
+                    "Stopping packet capture to " + this.file + ": " + e.getMessage(),
+                    2);
+            active.compareAndSet(this,
+                    null);
+            this.pending.clear();
+        } finally {
+            buffer.release();
+            try {
+                this.out.close();
+            } catch (IOException e) {
+                SlimevoidCore.console(CoreLib.MOD_ID,
+                        "Unable to close packet capture " + this.file + ": " + e.getMessage(),
+                        1);
+            }
+        }
+    }
+
+    private void write(Record record, ByteBuf buffer) throws IOException {
+        buffer.clear();
+        Integer channelId = this.channels.get(record.channel);
+        if (channelId == null) {
+            channelId = this.channels.size();
+            this.channels.put(record.channel,
+                    channelId);
+            buffer.writeByte(RECORD_CHANNEL);
+            ByteBufHelper.writeVarInt(buffer,
+                    channelId);
+            byte[] name = record.channel.getBytes("UTF-8");
+            ByteBufHelper.writeVarInt(buffer,
+                    name.length);
+            buffer.writeBytes(name);
+        }
+        buffer.writeByte(RECORD_PACKET);
+        ByteBufHelper.writeVarLong(buffer,
+                Math.max(0L,
+                        record.time - this.lastTime));
+        this.lastTime = record.time;
+        ByteBufHelper.writeVarInt(buffer,
+                channelId);
+        ByteBufHelper.writeVarInt(buffer,
+                record.discriminator);
+        buffer.writeByte(record.side.ordinal());
+        ByteBufHelper.writeVarInt(buffer,
+                record.data.length);
+        buffer.writeBytes(record.data);
+        buffer.readBytes(this.out,
+                buffer.readableBytes());
+        this.packets++;
+    }
+
+    /**
+     * Lets the writer finish the queued packets and waits for it
+     */
+    private int finish() {
+        try {
+            // The writer may have stopped on an error with the queue full
+            while (this.writer.isAlive() && !this.pending.offer(END,
+                    100L,
+                    TimeUnit.MILLISECONDS)) {
+            }
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int dropped = this.dropped.get();
+        if (dropped > 0) {
+            SlimevoidCore.console(CoreLib.MOD_ID,
+                    "Packet capture " + this.file + " left out " + dropped + " packets while full",
+                    1);
+        }
+        return this.packets;
+    }
+
+    /**
+     * A packet waiting to be written
+     */
+    private static class Record {
+        private final String channel;
+        private final int discriminator;
+        private final Side side;
+        private final byte[] data;
+        private final long time;
+
+        Record(String channel, int discriminator, Side side, byte[] data, long time) {
+            this.channel = channel;
+            this.discriminator = discriminator;
+            this.side = side;
+            this.data = data;
+            this.time = time;
+        }
+    }
+}
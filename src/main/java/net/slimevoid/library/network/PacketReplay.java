@@ -0,0 +1,260 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import com.google.common.collect.Maps;
+import io.netty.buffer.Unpooled;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.relauncher.Side;
+import net.slimevoid.library.core.SlimevoidCore;
+import net.slimevoid.library.core.lib.CoreLib;
+import net.slimevoid.library.network.executor.IPacketExecutor;
+import net.slimevoid.library.util.helpers.PacketHelper;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays a log written by {@link PacketRecorder} against the registered
+ * executors
+ * <p/>
+ * Each packet is decoded with the class registered for it on its channel and
+ * executed with the world and player given, at the recorded pace scaled by
+ * the speed or as fast as possible. Handler times are added to the
+ * statistics of the channel. The channels must be registered as they were
+ * when the log was recorded. Deltas are applied against payloads replayed
+ * earlier in the same log, kept apart from the live channel state, and
+ * those that cannot be applied are counted as dropped.
+ */
+public class PacketReplay {
+
+    private final File file;
+
+    private final World world;
+
+    private final EntityPlayer entityplayer;
+
+    /**
+     * The payloads received through delta sync, per channel
+     */
+    private final Map<String, PacketDeltaTracker> deltaTrackers = Maps.newHashMap();
+
+    /**
+     * @param file         the log to replay
+     * @param world        the world the packets are executed in
+     * @param entityplayer the player the packets are executed for
+     */
+    public PacketReplay(File file, World world, EntityPlayer entityplayer) {
+        this.file = file;
+        this.world = world;
+        this.entityplayer = entityplayer;
+    }
+
+    /**
+     * Replays the log on the calling thread
+     *
+     * @param speed how many times faster than recorded to replay, 0 or less
+     *              replays without waiting
+     * @return the outcome of the replay
+     * @throws IOException if the log cannot be read
+     */
+    public Result run(double speed) throws IOException {
+        Result result = new Result();
+        List<String> channels = new ArrayList<String>();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+        try {
+            byte[] magic = new byte[PacketRecorder.MAGIC.length];
+            in.readFully(magic);
+            int version = in.readUnsignedByte();
+            if (!Arrays.equals(magic,
+                    PacketRecorder.MAGIC) || version != PacketRecorder.VERSION) {
+                throw new IOException("Not a packet capture of version " + PacketRecorder.VERSION + ": " + this.file);
+            }
+            long start = System.nanoTime();
+            long due = 0;
+            int type;
+            while ((type = in.read()) != -1) {
+                if (type == PacketRecorder.RECORD_CHANNEL) {
+                    int id = readVarInt(in);
+                    byte[] name = new byte[readVarInt(in)];
+                    in.readFully(name);
+                    while (channels.size() <= id) {
+                        channels.add(null);
+                    }
+                    channels.set(id,
+                            new String(name, "UTF-8"));
+                } else if (type == PacketRecorder.RECORD_PACKET) {
+                    due += readVarLong(in);
+                    String channel = channels.get(readVarInt(in));
+                    int discriminator = readVarInt(in);
+                    Side side = Side.values()[in.readUnsignedByte()];
+                    byte[] data = new byte[readVarInt(in)];
+                    in.readFully(data);
+                    if (speed > 0) {
+                        long wait = (long) (due / speed) - (System.nanoTime() - start);
+                        if (wait > 0) {
+                            sleep(wait);
+                        }
+                    }
+                    this.execute(PacketHelper.getChannel(channel),
+                            discriminator,
+                            side,
+                            data,
+                            result);
+                } else {
+                    throw new IOException("Unknown record type " + type + " in " + this.file);
+                }
+            }
+            result.nanos = System.nanoTime() - start;
+        } catch (EOFException e) {
+            throw new IOException("Truncated packet capture " + this.file, e);
+        } finally {
+            in.close();
+        }
+        return result;
+    }
+
+    private void execute(PacketChannel channel, int discriminator, Side side, byte[] data, Result result) {
+        Class<?> type = channel != null ? channel.getMessageType(discriminator) : null;
+        IMessageHandler handler = channel != null ? channel.getExecutor(discriminator,
+                side) : null;
+        if (type == null || !PacketUpdate.class.isAssignableFrom(type) || !(handler instanceof IPacketExecutor)) {
+            result.skipped++;
+            return;
+        }
+        PacketUpdate packet;
+        try {
+            packet = (PacketUpdate) type.newInstance();
+            packet.setChannel(channel.getName());
+            packet.setDeltaTracker(this.getDeltaTracker(channel));
+            packet.readData(Unpooled.wrappedBuffer(data));
+        } catch (Exception e) {
+            result.failed++;
+            SlimevoidCore.console(CoreLib.MOD_ID,
+                    "Unable to decode replayed packet index " + discriminator + " on channel " + channel.getName() + ": " + e,
+                    1);
+            return;
+        }
+        if (packet.isDeltaDropped()) {
+            packet.release();
+            result.dropped++;
+            return;
+        }
+        long time = System.nanoTime();
+        try {
+            ((IPacketExecutor) handler).execute(packet,
+                    this.world,
+                    this.entityplayer);
+            result.executed++;
+        } catch (RuntimeException e) {
+            result.failed++;
+            SlimevoidCore.console(CoreLib.MOD_ID,
+                    "Replayed packet " + packet + " failed: " + e,
+                    1);
+        } finally {
+            packet.release();
+            channel.getStatistics().recordHandled(packet.getPacketId(),
+                    System.nanoTime() - time);
+        }
+    }
+
+    private PacketDeltaTracker getDeltaTracker(PacketChannel channel) {
+        PacketDeltaTracker tracker = this.deltaTrackers.get(channel.getName());
+        if (tracker == null) {
+            tracker = new PacketDeltaTracker();
+            this.deltaTrackers.put(channel.getName(),
+                    tracker);
+        }
+        return tracker;
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            Thread.sleep(nanos / 1000000L,
+                    (int) (nanos % 1000000L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift >= 64) {
+                throw new IOException("Malformed varint in packet capture");
+            }
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Counts of a replay
+     */
+    public static class Result {
+        private int executed;
+        private int failed;
+        private int skipped;
+        private int dropped;
+        private long nanos;
+
+        public int getExecuted() {
+            return this.executed;
+        }
+
+        public int getFailed() {
+            return this.failed;
+        }
+
+        /**
+         * Retrieves the packets with no executor registered for them
+         */
+        public int getSkipped() {
+            return this.skipped;
+        }
+
+        /**
+         * Retrieves the deltas made against a payload missing from the log
+         */
+        public int getDropped() {
+            return this.dropped;
+        }
+
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        @Override
+        public String toString() {
+            return "executed " + this.executed + ", failed " + this.failed + ", skipped " + this.skipped
+                    + ", dropped " + this.dropped + " in " + (this.nanos / 1000000L) + " ms";
+        }
+    }
+}
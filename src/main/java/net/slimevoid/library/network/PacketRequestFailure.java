@@ -0,0 +1,64 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+
+/**
+ * Tells a client that a request will get no reply
+ *
+ * @see PacketRequestTracker
+ */
+public class PacketRequestFailure implements IMessage {
+
+    private int correlationId;
+
+    private String reason;
+
+    public PacketRequestFailure() {
+    }
+
+    public PacketRequestFailure(int correlationId, String reason) {
+        this.correlationId = correlationId;
+        this.reason = reason;
+    }
+
+    public int getCorrelationId() {
+        return this.correlationId;
+    }
+
+    public String getReason() {
+        return this.reason;
+    }
+
+    @Override
+    public void toBytes(ByteBuf buffer) {
+        ByteBufHelper.writeVarInt(buffer,
+                this.correlationId);
+        ByteBufUtils.writeUTF8String(buffer,
+                this.reason);
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buffer) {
+        this.correlationId = ByteBufHelper.readVarInt(buffer);
+        this.reason = ByteBufUtils.readUTF8String(buffer);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[" + this.correlationId + ": " + this.reason + "]";
+    }
+}
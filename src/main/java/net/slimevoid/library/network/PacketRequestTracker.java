@@ -0,0 +1,296 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.slimevoid.library.core.SlimevoidCore;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+import net.slimevoid.library.core.lib.CoreLib;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Requests awaiting a reply on a channel
+ * <p/>
+ * The client tags each request with a correlation id and holds a future
+ * until the reply with the same id arrives, fails or times out. The server
+ * counts the requests in flight per player and sends each reply once the
+ * executor's future completes, from whichever thread completes it. Replies
+ * are sent from the server thread at the end of the tick.
+ *
+ * @see PacketChannel#sendRequest(PacketUpdate)
+ */
+public class PacketRequestTracker {
+
+    private final PacketChannel channel;
+
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Requests sent to the server by correlation id
+     */
+    private final ConcurrentMap<Integer, Pending> pending = Maps.newConcurrentMap();
+
+    /**
+     * Requests being executed for each player, keyed by id since respawning
+     * replaces the player entity
+     */
+    private final ConcurrentMap<UUID, AtomicInteger> inFlight = Maps.newConcurrentMap();
+
+    /**
+     * Requests being executed, kept to time them out
+     */
+    private final Queue<Executing> executing = new ConcurrentLinkedQueue<Executing>();
+
+    /**
+     * Completed replies waiting for the server thread
+     */
+    private final Queue<Reply> replies = new ConcurrentLinkedQueue<Reply>();
+
+    public PacketRequestTracker(PacketChannel channel) {
+        this.channel = channel;
+    }
+
+    private static long getDeadline() {
+        return System.nanoTime() + ConfigurationLib.requestTimeoutSeconds * 1000000000L;
+    }
+
+    /**
+     * Tags a request with a new correlation id and awaits its reply
+     *
+     * @param request the request about to be sent
+     * @return the future completed with the reply
+     */
+    public SettableFuture<PacketUpdate> begin(PacketUpdate request) {
+        int id;
+        do {
+            id = this.nextId.incrementAndGet() & Integer.MAX_VALUE;
+        } while (id == 0 || this.pending.containsKey(id));
+        SettableFuture<PacketUpdate> future = SettableFuture.create();
+        this.pending.put(id,
+                new Pending(future, getDeadline()));
+        request.setCorrelation(id,
+                false);
+        return future;
+    }
+
+    /**
+     * Completes the request a reply belongs to
+     *
+     * @param reply the reply received from the server
+     * @return false if the request is no longer awaited
+     */
+    public boolean complete(PacketUpdate reply) {
+        Pending pending = this.pending.remove(reply.getCorrelationId());
+        return pending != null && pending.future.set(reply);
+    }
+
+    /**
+     * Fails the request with the given correlation id
+     *
+     * @param id     the correlation id
+     * @param reason why the server did not reply
+     */
+    public void fail(int id, String reason) {
+        Pending pending = this.pending.remove(id);
+        if (pending != null) {
+            pending.future.setException(new RuntimeException("Request failed on channel " + this.channel.getName() + ": " + reason));
+        }
+    }
+
+    /**
+     * Counts a request from a player as in flight
+     *
+     * @param entityplayer the sender
+     * @return false if the player has too many requests in flight
+     */
+    public boolean tryAccept(EntityPlayerMP entityplayer) {
+        AtomicInteger count = this.inFlight.get(entityplayer.getUniqueID());
+        if (count == null) {
+            count = new AtomicInteger();
+            AtomicInteger existing = this.inFlight.putIfAbsent(entityplayer.getUniqueID(),
+                    count);
+            if (existing != null) {
+                count = existing;
+            }
+        }
+        if (count.incrementAndGet() > ConfigurationLib.maxRequestsInFlight && ConfigurationLib.maxRequestsInFlight > 0) {
+            count.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sends the outcome of an accepted request to its sender once complete
+     *
+     * @param entityplayer the sender
+     * @param id           the correlation id of the request
+     * @param future       the reply being computed
+     */
+    public void reply(final EntityPlayerMP entityplayer, final int id, final ListenableFuture<? extends PacketUpdate> future) {
+        this.executing.add(new Executing(future, getDeadline()));
+        Futures.addCallback(future,
+                new FutureCallback<PacketUpdate>() {
+                    @Override
+                    public void onSuccess(PacketUpdate reply) {
+                        PacketRequestTracker.this.release(entityplayer);
+                        PacketRequestTracker.this.replies.add(reply != null ? new Reply(entityplayer, id, reply) : new Reply(entityplayer, id, "No reply"));
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        PacketRequestTracker.this.release(entityplayer);
+                        String reason = t instanceof CancellationException ? "Timed out" : String.valueOf(t.getMessage());
+                        if (!(t instanceof CancellationException)) {
+                            SlimevoidCore.console(CoreLib.MOD_ID,
+                                    "Request " + id + " on channel " + PacketRequestTracker.this.channel.getName() + " failed: " + t,
+                                    1);
+                        }
+                        PacketRequestTracker.this.replies.add(new Reply(entityplayer, id, reason));
+                    }
+                });
+    }
+
+    /**
+     * Rejects a request without executing it
+     */
+    public void reject(EntityPlayerMP entityplayer, int id, String reason) {
+        this.replies.add(new Reply(entityplayer, id, reason));
+    }
+
+    private void release(EntityPlayerMP entityplayer) {
+        AtomicInteger count = this.inFlight.get(entityplayer.getUniqueID());
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    /**
+     * Sends the replies completed since the last call, should be called from
+     * the server thread
+     */
+    public void sendReplies() {
+        Reply reply;
+        while ((reply = this.replies.poll()) != null) {
+            if (reply.entityplayer.playerNetServerHandler == null) continue;
+            // The sender may have respawned while the request was executing
+            EntityPlayerMP entityplayer = reply.entityplayer.playerNetServerHandler.playerEntity;
+            if (reply.reply != null) {
+                reply.reply.setCorrelation(reply.id,
+                        true);
+                this.channel.sendTo(reply.reply,
+                        entityplayer);
+            } else {
+                this.channel.sendTo(new PacketRequestFailure(reply.id, reply.reason),
+                        entityplayer);
+            }
+        }
+    }
+
+    /**
+     * Fails requests awaiting a reply and cancels requests being executed
+     * once past the configured timeout
+     */
+    public void expire() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Integer, Pending>> pending = this.pending.entrySet().iterator();
+        while (pending.hasNext()) {
+            Map.Entry<Integer, Pending> entry = pending.next();
+            if (now - entry.getValue().deadline > 0) {
+                pending.remove();
+                entry.getValue().future.setException(new TimeoutException("Request " + entry.getKey() + " on channel "
+                        + this.channel.getName() + " timed out"));
+            }
+        }
+        Iterator<Executing> executing = this.executing.iterator();
+        while (executing.hasNext()) {
+            Executing request = executing.next();
+            if (request.future.isDone()) {
+                executing.remove();
+            } else if (now - request.deadline > 0) {
+                executing.remove();
+                request.future.cancel(false);
+            }
+        }
+    }
+
+    public void removePlayer(EntityPlayerMP entityplayer) {
+        this.inFlight.remove(entityplayer.getUniqueID());
+    }
+
+    /**
+     * Fails every request awaiting a reply from the server
+     */
+    public void disconnect() {
+        Iterator<Pending> pending = this.pending.values().iterator();
+        while (pending.hasNext()) {
+            Pending request = pending.next();
+            pending.remove();
+            request.future.setException(new CancellationException("Disconnected from the server"));
+        }
+    }
+
+    private static class Pending {
+        private final SettableFuture<PacketUpdate> future;
+        private final long deadline;
+
+        Pending(SettableFuture<PacketUpdate> future, long deadline) {
+            this.future = future;
+            this.deadline = deadline;
+        }
+    }
+
+    private static class Executing {
+        private final ListenableFuture<?> future;
+        private final long deadline;
+
+        Executing(ListenableFuture<?> future, long deadline) {
+            this.future = future;
+            this.deadline = deadline;
+        }
+    }
+
+    private static class Reply {
+        private final EntityPlayerMP entityplayer;
+        private final int id;
+        private final PacketUpdate reply;
+        private final String reason;
+
+        Reply(EntityPlayerMP entityplayer, int id, PacketUpdate reply) {
+            this.entityplayer = entityplayer;
+            this.id = id;
+            this.reply = reply;
+            this.reason = null;
+        }
+
+        Reply(EntityPlayerMP entityplayer, int id, String reason) {
+            this.entityplayer = entityplayer;
+            this.id = id;
+            this.reply = null;
+            this.reason = reason;
+        }
+    }
+}
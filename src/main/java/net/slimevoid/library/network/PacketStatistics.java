@@ -0,0 +1,218 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per packet id traffic counters for a channel
+ * <p/>
+ * Counts, bytes and timings are kept in atomics and the timings in log2
+ * nanosecond histograms, so recording a packet never allocates once the
+ * entry for its id exists. Ids outside 0 to 254 share the last entry.
+ */
+public class PacketStatistics implements PacketStatisticsMBean {
+
+    /**
+     * Header of the rows returned by {@link #getRows()}
+     */
+    public static final String CSV_HEADER = "channel,packetId,sent,bytesSent,encodeNanos,encodeP50Nanos,encodeP99Nanos,received,bytesReceived,decodeNanos,decodeP50Nanos,decodeP99Nanos,handled,handleNanos,handleP50Nanos,handleP99Nanos";
+
+    private static final int OTHER_ID = 255;
+
+    private final String channel;
+
+    private final AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<Entry>(OTHER_ID + 1);
+
+    public PacketStatistics(String channel) {
+        this.channel = channel;
+    }
+
+    private Entry getEntry(int packetId) {
+        int index = packetId >= 0 && packetId < OTHER_ID ? packetId : OTHER_ID;
+        Entry entry = this.entries.get(index);
+        if (entry == null) {
+            this.entries.compareAndSet(index,
+                    null,
+                    new Entry(index));
+            entry = this.entries.get(index);
+        }
+        return entry;
+    }
+
+    public void recordEncode(int packetId, int bytes, long nanos) {
+        Entry entry = this.getEntry(packetId);
+        entry.sent.incrementAndGet();
+        entry.bytesSent.addAndGet(bytes);
+        entry.encodeNanos.addAndGet(nanos);
+        entry.encodeHistogram.record(nanos);
+    }
+
+    public void recordDecode(int packetId, int bytes, long nanos) {
+        Entry entry = this.getEntry(packetId);
+        entry.received.incrementAndGet();
+        entry.bytesReceived.addAndGet(bytes);
+        entry.decodeNanos.addAndGet(nanos);
+        entry.decodeHistogram.record(nanos);
+    }
+
+    public void recordHandled(int packetId, long nanos) {
+        Entry entry = this.getEntry(packetId);
+        entry.handled.incrementAndGet();
+        entry.handleNanos.addAndGet(nanos);
+        entry.handleHistogram.record(nanos);
+    }
+
+    @Override
+    public String getChannel() {
+        return this.channel;
+    }
+
+    @Override
+    public long getPacketsSent() {
+        long total = 0;
+        for (int i = 0; i < this.entries.length(); i++) {
+            Entry entry = this.entries.get(i);
+            if (entry != null) total += entry.sent.get();
+        }
+        return total;
+    }
+
+    @Override
+    public long getBytesSent() {
+        long total = 0;
+        for (int i = 0; i < this.entries.length(); i++) {
+            Entry entry = this.entries.get(i);
+            if (entry != null) total += entry.bytesSent.get();
+        }
+        return total;
+    }
+
+    @Override
+    public long getPacketsReceived() {
+        long total = 0;
+        for (int i = 0; i < this.entries.length(); i++) {
+            Entry entry = this.entries.get(i);
+            if (entry != null) total += entry.received.get();
+        }
+        return total;
+    }
+
+    @Override
+    public long getBytesReceived() {
+        long total = 0;
+        for (int i = 0; i < this.entries.length(); i++) {
+            Entry entry = this.entries.get(i);
+            if (entry != null) total += entry.bytesReceived.get();
+        }
+        return total;
+    }
+
+    @Override
+    public String[] getRows() {
+        String[] rows = new String[this.entries.length()];
+        int count = 0;
+        for (int i = 0; i < this.entries.length(); i++) {
+            Entry entry = this.entries.get(i);
+            if (entry != null) {
+                rows[count++] = entry.toRow(this.channel);
+            }
+        }
+        String[] result = new String[count];
+        System.arraycopy(rows,
+                0,
+                result,
+                0,
+                count);
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < this.entries.length(); i++) {
+            this.entries.set(i,
+                    null);
+        }
+    }
+
+    /**
+     * Counters for a single packet id
+     */
+    private static class Entry {
+        private final int packetId;
+
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong bytesSent = new AtomicLong();
+        private final AtomicLong encodeNanos = new AtomicLong();
+        private final AtomicLong received = new AtomicLong();
+        private final AtomicLong bytesReceived = new AtomicLong();
+        private final AtomicLong decodeNanos = new AtomicLong();
+        private final AtomicLong handled = new AtomicLong();
+        private final AtomicLong handleNanos = new AtomicLong();
+
+        private final Histogram encodeHistogram = new Histogram();
+        private final Histogram decodeHistogram = new Histogram();
+        private final Histogram handleHistogram = new Histogram();
+
+        Entry(int packetId) {
+            this.packetId = packetId;
+        }
+
+        String toRow(String channel) {
+            return channel + "," + this.packetId
+                    + "," + this.sent.get() + "," + this.bytesSent.get() + "," + this.encodeNanos.get()
+                    + "," + this.encodeHistogram.percentile(0.5D) + "," + this.encodeHistogram.percentile(0.99D)
+                    + "," + this.received.get() + "," + this.bytesReceived.get() + "," + this.decodeNanos.get()
+                    + "," + this.decodeHistogram.percentile(0.5D) + "," + this.decodeHistogram.percentile(0.99D)
+                    + "," + this.handled.get() + "," + this.handleNanos.get()
+                    + "," + this.handleHistogram.percentile(0.5D) + "," + this.handleHistogram.percentile(0.99D);
+        }
+    }
+
+    /**
+     * Histogram of durations in buckets of powers of two nanoseconds
+     */
+    public static class Histogram {
+        private static final int BUCKETS = 48;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        public void record(long nanos) {
+            int bucket = nanos <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos);
+            this.buckets.incrementAndGet(Math.min(bucket,
+                    BUCKETS - 1));
+        }
+
+        /**
+         * Estimates a percentile from the buckets
+         *
+         * @param fraction the percentile between 0 and 1
+         * @return the upper bound in nanoseconds of the bucket holding it
+         */
+        public long percentile(double fraction) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += this.buckets.get(i);
+            }
+            if (total == 0) return 0;
+            long target = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += this.buckets.get(i);
+                if (seen >= target) return i == 0 ? 0 : 1L << i;
+            }
+            return 1L << (BUCKETS - 1);
+        }
+    }
+}
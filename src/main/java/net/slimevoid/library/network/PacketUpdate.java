@@ -1,9 +1,15 @@
 package net.slimevoid.library.network;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
+import net.minecraftforge.fml.common.FMLCommonHandler;
 import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.minecraftforge.fml.relauncher.Side;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+import net.slimevoid.library.util.helpers.PacketHelper;
 
 /**
  * Packet Information for Reading/Writing packet data
@@ -15,10 +21,59 @@ import net.minecraftforge.fml.common.network.ByteBufUtils;
  * (Used for blocks and activation) hitX The hitX for the current packet (Used
  * for blocks and activation) hitY The hitY for the current packet (Used for
  * blocks and activation) hitZ the hitZ for the current packet
+ * <p/>
+ * On the wire the header is a version byte, the packet id as a varint and a
+ * varint presence bitmask; only the sections that are set follow. The position is
+ * three zigzag varints so any int coordinate survives the trip. When enabled, hit vectors within
+ * [0, 1] are sent as 8 or 16 bit fixed point with the side folded into a
+ * single interaction byte, see {@link #getHitVectorBits()}. Commands registered with the channel
+ * are sent as a varint id from the channel's {@link PacketCommandDictionary}.
+ * Fields of subclasses marked with {@link PacketField} follow the header.
+ * Payloads are deflated by the channel's {@link PacketCompressor} when
+ * compression is enabled and the payload is large enough. Delta synced
+ * packets carry a sequence number and a keyframe or only the values changed
+ * since the previous payload for the same {@link #getDeltaKey()}. Requests and their replies carry a
+ * correlation id, see {@link PacketRequestTracker}.
  *
  * @author Eurymachus
  */
 public abstract class PacketUpdate extends EurysPacket {
+    /**
+     * Version of the header layout written by {@link #writeData(ByteBuf)}
+     */
+    public static final int WIRE_VERSION = 2;
+
+    /**
+     * Presence flags for the optional header sections, anything not flagged
+     * is left at its default value and costs nothing on the wire
+     */
+    protected static final int FLAG_COMMAND = 1;
+    protected static final int FLAG_POSITION = 2;
+    protected static final int FLAG_SIDE = 4;
+    protected static final int FLAG_HIT = 8;
+    protected static final int FLAG_PAYLOAD = 16;
+    protected static final int FLAG_COMMAND_ID = 32;
+    protected static final int FLAG_COMPRESSED = 64;
+    protected static final int FLAG_DELTA = 128;
+    protected static final int FLAG_KEYFRAME = 256;
+    protected static final int FLAG_REQUEST = 512;
+    protected static final int FLAG_REPLY = 1024;
+    protected static final int FLAG_INTERACTION = 2048;
+
+    /**
+     * Layout of the interaction byte sent in place of the side and hit
+     * vector sections, the side takes the low three bits
+     */
+    private static final int INTERACTION_SIDE = 7;
+    private static final int INTERACTION_FINE = 8;
+
+    /**
+     * Fixed point scales of quantized hit vectors, powers of two so that 0,
+     * 1 and every sixteenth vanilla produces decode exactly
+     */
+    private static final float HIT_SCALE_FINE = 1 << 15;
+    private static final float HIT_SCALE_COARSE = 1 << 7;
+
     public PacketPayload payload;
 
     private BlockPos pos;
@@ -34,6 +89,52 @@ public abstract class PacketUpdate extends EurysPacket {
 
     public String command;
 
+    /**
+     * Id of the command in the channel's dictionary, -1 if not resolved
+     */
+    private int commandId = -1;
+
+    /**
+     * Dictionary to encode the command with, set by the channel when sent
+     */
+    private PacketCommandDictionary commandDictionary;
+
+    /**
+     * Payload to encode a delta against, set by the channel when sent
+     */
+    private PacketPayload deltaBase;
+
+    /**
+     * Whether the payload is sent as a keyframe for delta sync
+     */
+    private boolean deltaKeyframe;
+
+    /**
+     * Number of the payload among those sent for the delta key
+     */
+    private int deltaSequence;
+
+    /**
+     * Whether a received delta could not be applied, the packet is not executed
+     */
+    private boolean deltaDropped;
+
+    /**
+     * Tracker to apply received deltas with instead of the channel's, set
+     * for replays so that they never touch live state
+     */
+    private PacketDeltaTracker deltaTracker;
+
+    /**
+     * Id pairing a request with its reply, 0 for other packets
+     */
+    private int correlationId;
+
+    /**
+     * Whether the packet is the reply to the request with the correlation id
+     */
+    private boolean reply;
+
     public PacketUpdate() {
     }
 
@@ -92,96 +193,502 @@ public abstract class PacketUpdate extends EurysPacket {
     }
 
     public String getCommand() {
-        return !this.command.isEmpty() ? this.command : "";
+        return this.command != null ? this.command : "";
     }
 
     public void setCommand(String command) {
         this.command = command;
+        this.commandId = -1;
+    }
+
+    /**
+     * Retrieves the id of the command in the channel's command dictionary
+     * <p/>
+     * Executors can switch on the id instead of comparing strings
+     *
+     * @return the id or -1 if the command is not registered
+     */
+    public int getCommandId() {
+        if (this.commandId < 0 && !this.getCommand().isEmpty()) {
+            PacketChannel channel = PacketHelper.getChannel(this.getChannel());
+            if (channel != null) {
+                this.commandId = channel.getInboundCommands().getId(this.getCommand());
+            }
+        }
+        return this.commandId;
+    }
+
+    /**
+     * Sets the dictionary the command is encoded with
+     *
+     * @param commandDictionary the dictionary or null to send the command as text
+     */
+    public void setCommandDictionary(PacketCommandDictionary commandDictionary) {
+        this.commandDictionary = commandDictionary;
+    }
+
+    /**
+     * Sets how the payload is encoded for delta sync
+     *
+     * @param base     the payload to send a delta against or null
+     * @param keyframe whether a full payload is kept by the receiver
+     * @param sequence the number of the payload for its delta key
+     */
+    void setDelta(PacketPayload base, boolean keyframe, int sequence) {
+        this.deltaBase = base;
+        this.deltaKeyframe = keyframe;
+        this.deltaSequence = sequence;
+    }
+
+    /**
+     * Sets the tracker received deltas are applied with, a packet with its
+     * own tracker never requests keyframes
+     *
+     * @param deltaTracker the tracker or null to use the channel's
+     */
+    void setDeltaTracker(PacketDeltaTracker deltaTracker) {
+        this.deltaTracker = deltaTracker;
+    }
+
+    /**
+     * Whether the packet is a delta against a payload the receiver does not
+     * hold, its payload is empty and it must not be executed
+     */
+    public boolean isDeltaDropped() {
+        return this.deltaDropped;
+    }
+
+    /**
+     * Sets the id pairing a request with its reply
+     *
+     * @param correlationId the id or 0 for a plain packet
+     * @param reply         whether the packet answers the request
+     */
+    void setCorrelation(int correlationId, boolean reply) {
+        this.correlationId = correlationId;
+        this.reply = reply;
+    }
+
+    public int getCorrelationId() {
+        return this.correlationId;
+    }
+
+    /**
+     * Whether the sender awaits a reply to this packet
+     */
+    public boolean isRequest() {
+        return this.correlationId != 0 && !this.reply;
+    }
+
+    /**
+     * Whether this packet answers a request
+     */
+    public boolean isReply() {
+        return this.correlationId != 0 && this.reply;
+    }
+
+    /**
+     * Override this method to identify what the packet updates for delta sync
+     * <p/>
+     * Packets with equal keys replace each other's payload on the receiver
+     *
+     * @return by default the class, command and position of the packet
+     */
+    public Object getDeltaKey() {
+        return new PacketDeltaKey(this.getClass(), this.getCommand(), this.xPosition, this.yPosition, this.zPosition);
     }
 
     @Override
     public void writeData(ByteBuf data) {
-        data.writeInt(this.getPacketId());
-        ByteBufUtils.writeUTF8String(data,
-                this.getCommand());
-
-        data.writeInt(this.xPosition);
-        data.writeInt(this.yPosition);
-        data.writeInt(this.zPosition);
+        data.writeByte(WIRE_VERSION);
+        ByteBufHelper.writeVarInt(data,
+                this.getPacketId());
 
-        // Checks if the side, vecX, vecY and vecZ values have been set defaults
-        // to 0 if not
-        data.writeInt(Integer.valueOf(this.side) != null ? this.side : 0);
-        data.writeFloat(Float.valueOf(this.hitX) != null ? this.hitX : 0.0F);
-        data.writeFloat(Float.valueOf(this.hitY) != null ? this.hitY : 0.0F);
-        data.writeFloat(Float.valueOf(this.hitZ) != null ? this.hitZ : 0.0F);
+        int commandId = this.commandDictionary != null ? this.commandDictionary.getId(this.getCommand()) : -1;
 
+        int flags = 0;
+        if (commandId >= 0) flags |= FLAG_COMMAND_ID;
+        else if (!this.getCommand().isEmpty()) flags |= FLAG_COMMAND;
+        if (this.xPosition != 0 || this.yPosition != 0 || this.zPosition != 0) flags |= FLAG_POSITION;
+        int hitBits = this.getHitVectorBits();
+        if (this.hitX != 0.0F || this.hitY != 0.0F || this.hitZ != 0.0F) {
+            flags |= hitBits > 0 && this.canQuantize() ? FLAG_INTERACTION : FLAG_HIT;
+        }
+        if (this.side != 0 && (flags & FLAG_INTERACTION) == 0) flags |= FLAG_SIDE;
+        if (this.correlationId != 0) flags |= this.reply ? FLAG_REPLY : FLAG_REQUEST;
         // No payload means no additional data
-        if (this.payload == null) {
-            data.writeInt(0);
-            data.writeInt(0);
-            data.writeInt(0);
-            data.writeInt(0);
-            data.writeInt(0);
-            return;
-        }
-
-        // Continue writing payload information
-        data.writeInt(this.payload.getIntSize());
-        data.writeInt(this.payload.getFloatSize());
-        data.writeInt(this.payload.getStringSize());
-        data.writeInt(this.payload.getBoolSize());
-        data.writeInt(this.payload.getDoubleSize());
-
-        for (int i = 0; i < this.payload.getIntSize(); i++)
-            data.writeInt(this.payload.getIntPayload(i));
-        for (int i = 0; i < this.payload.getFloatSize(); i++)
-            data.writeFloat(this.payload.getFloatPayload(i));
-        for (int i = 0; i < this.payload.getStringSize(); i++)
-            ByteBufUtils.writeUTF8String(data,
-                    this.payload.getStringPayload(i));
-        for (int i = 0; i < this.payload.getBoolSize(); i++)
-            data.writeBoolean(this.payload.getBoolPayload(i));
-        for (int i = 0; i < this.payload.getDoubleSize(); i++)
-            data.writeDouble(this.payload.getDoublePayload(i));
+        if (this.payload != null && !this.payload.isEmpty()) {
+            flags |= FLAG_PAYLOAD;
+            if (this.deltaBase != null) flags |= FLAG_DELTA;
+            else if (this.deltaKeyframe) flags |= FLAG_KEYFRAME;
+        }
+
+        ByteBuf payloadData = null;
+        ByteBuf compressed = null;
+        try {
+            PacketCompressor compressor = (flags & FLAG_PAYLOAD) != 0 ? this.getCompressor() : null;
+            if (compressor != null && compressor.isEnabled()) {
+                payloadData = Unpooled.buffer();
+                this.writePayload(payloadData);
+                if (payloadData.readableBytes() >= compressor.getThreshold()) {
+                    compressed = Unpooled.buffer();
+                    compressor.compress(payloadData,
+                            compressed);
+                    // Only worth it if the payload actually shrinks
+                    if (compressed.readableBytes() < payloadData.readableBytes()) flags |= FLAG_COMPRESSED;
+                }
+            }
+            ByteBufHelper.writeVarInt(data,
+                    flags);
+            this.writeSections(data,
+                    flags,
+                    commandId,
+                    hitBits > 8,
+                    (flags & FLAG_COMPRESSED) != 0 ? compressed : payloadData);
+        } finally {
+            if (payloadData != null) payloadData.release();
+            if (compressed != null) compressed.release();
+        }
+        PacketFieldCodec.forClass(this.getClass()).write(this,
+                data);
+    }
+
+    /**
+     * Whether the side and hit vectors fit the interaction byte and fixed
+     * point
+     */
+    private boolean canQuantize() {
+        return this.side >= 0 && this.side <= INTERACTION_SIDE
+                && this.hitX >= 0.0F && this.hitX <= 1.0F
+                && this.hitY >= 0.0F && this.hitY <= 1.0F
+                && this.hitZ >= 0.0F && this.hitZ <= 1.0F;
+    }
+
+    private static void writeHit(ByteBuf data, float hit, boolean fine) {
+        if (fine) {
+            data.writeShort(Math.round(hit * HIT_SCALE_FINE));
+        } else {
+            data.writeByte(Math.round(hit * HIT_SCALE_COARSE));
+        }
+    }
+
+    private static float readHit(ByteBuf data, boolean fine) {
+        return fine ? data.readUnsignedShort() / HIT_SCALE_FINE : data.readUnsignedByte() / HIT_SCALE_COARSE;
+    }
+
+    /**
+     * Override this method to change the precision of hit vectors
+     * <p/>
+     * Vectors outside [0, 1] and sides that do not fit in three bits are
+     * always sent in full
+     *
+     * @return 8 or 16 bits per coordinate, 0 to send floats, by default the
+     * configured precision, which is off unless enabled
+     */
+    protected int getHitVectorBits() {
+        return ConfigurationLib.hitVectorBits;
+    }
+
+    /**
+     * Writes the header sections named by the flags
+     *
+     * @param fineHit     whether quantized hit vectors take 16 bits
+     * @param payloadData the encoded payload or null to encode it here
+     */
+    private void writeSections(ByteBuf data, int flags, int commandId, boolean fineHit, ByteBuf payloadData) {
+
+        if ((flags & (FLAG_REQUEST | FLAG_REPLY)) != 0) ByteBufHelper.writeVarInt(data,
+                this.correlationId);
+        if ((flags & FLAG_COMMAND_ID) != 0) ByteBufHelper.writeVarInt(data,
+                commandId);
+        else if ((flags & FLAG_COMMAND) != 0) ByteBufUtils.writeUTF8String(data,
+                this.getCommand());
+        if ((flags & FLAG_POSITION) != 0) {
+            ByteBufHelper.writeSignedVarInt(data,
+                    this.xPosition);
+            ByteBufHelper.writeSignedVarInt(data,
+                    this.yPosition);
+            ByteBufHelper.writeSignedVarInt(data,
+                    this.zPosition);
+        }
+        if ((flags & FLAG_SIDE) != 0) ByteBufHelper.writeSignedVarInt(data,
+                this.side);
+        if ((flags & FLAG_HIT) != 0) {
+            data.writeFloat(this.hitX);
+            data.writeFloat(this.hitY);
+            data.writeFloat(this.hitZ);
+        }
+        if ((flags & FLAG_INTERACTION) != 0) {
+            data.writeByte(this.side | (fineHit ? INTERACTION_FINE : 0));
+            writeHit(data,
+                    this.hitX,
+                    fineHit);
+            writeHit(data,
+                    this.hitY,
+                    fineHit);
+            writeHit(data,
+                    this.hitZ,
+                    fineHit);
+        }
+        if ((flags & FLAG_PAYLOAD) != 0) {
+            if ((flags & (FLAG_DELTA | FLAG_KEYFRAME)) != 0) ByteBufHelper.writeVarInt(data,
+                    this.deltaSequence);
+            // Length prefix lets the receiver slice the payload without decoding it
+            if (payloadData != null) {
+                data.writeMedium(payloadData.readableBytes());
+                data.writeBytes(payloadData,
+                        payloadData.readerIndex(),
+                        payloadData.readableBytes());
+            } else {
+                int lengthIndex = data.writerIndex();
+                data.writeMedium(0);
+                this.writePayload(data);
+                data.setMedium(lengthIndex,
+                        data.writerIndex() - lengthIndex - 3);
+            }
+        }
+    }
+
+    private void writePayload(ByteBuf data) {
+        if (this.deltaBase != null) {
+            this.payload.writeDelta(this.deltaBase,
+                    data);
+        } else {
+            this.payload.writeData(data);
+        }
     }
 
     @Override
     public void readData(ByteBuf data) {
-        this.setPacketId(data.readInt());
-        this.setCommand(ByteBufUtils.readUTF8String(data));
-
-        this.setPosition(data.readInt(),
-                data.readInt(),
-                data.readInt(),
-                data.readInt());
-        this.setHitVectors(data.readFloat(),
-                data.readFloat(),
-                data.readFloat());
-
-        int intSize = data.readInt();
-        int floatSize = data.readInt();
-        int stringSize = data.readInt();
-        int boolSize = data.readInt();
-        int doubleSize = data.readInt();
-
-        this.payload = new PacketPayload(intSize, floatSize, stringSize, boolSize, doubleSize);
-
-        for (int i = 0; i < this.payload.getIntSize(); i++)
-            this.payload.setIntPayload(i,
-                    data.readInt());
-        for (int i = 0; i < this.payload.getFloatSize(); i++)
-            this.payload.setFloatPayload(i,
+        int version = data.readUnsignedByte();
+        if (version != WIRE_VERSION) {
+            throw new IllegalStateException("Unsupported packet wire version "
+                    + version + " (expected " + WIRE_VERSION + ")");
+        }
+        this.setPacketId(ByteBufHelper.readVarInt(data));
+
+        int flags = ByteBufHelper.readVarInt(data);
+
+        if ((flags & (FLAG_REQUEST | FLAG_REPLY)) != 0) {
+            this.setCorrelation(ByteBufHelper.readVarInt(data),
+                    (flags & FLAG_REPLY) != 0);
+        } else {
+            this.setCorrelation(0,
+                    false);
+        }
+        if ((flags & FLAG_COMMAND_ID) != 0) {
+            int commandId = ByteBufHelper.readVarInt(data);
+            PacketChannel channel = PacketHelper.getChannel(this.getChannel());
+            String command = channel != null ? channel.getInboundCommands().getCommand(commandId) : null;
+            if (command == null) {
+                throw new IllegalStateException("Unknown command id " + commandId
+                        + " on channel " + this.getChannel());
+            }
+            this.setCommand(command);
+            this.commandId = commandId;
+        } else {
+            this.setCommand((flags & FLAG_COMMAND) != 0 ? ByteBufUtils.readUTF8String(data) : "");
+        }
+        int x = 0, y = 0, z = 0;
+        if ((flags & FLAG_POSITION) != 0) {
+            x = ByteBufHelper.readSignedVarInt(data);
+            y = ByteBufHelper.readSignedVarInt(data);
+            z = ByteBufHelper.readSignedVarInt(data);
+        }
+        this.setPosition(x,
+                y,
+                z,
+                (flags & FLAG_SIDE) != 0 ? ByteBufHelper.readSignedVarInt(data) : 0);
+        if ((flags & FLAG_HIT) != 0) {
+            this.setHitVectors(data.readFloat(),
+                    data.readFloat(),
                     data.readFloat());
-        for (int i = 0; i < this.payload.getStringSize(); i++)
-            this.payload.setStringPayload(i,
-                    ByteBufUtils.readUTF8String(data));
-        for (int i = 0; i < this.payload.getBoolSize(); i++)
-            this.payload.setBoolPayload(i,
-                    data.readBoolean());
-        for (int i = 0; i < this.payload.getDoubleSize(); i++)
-            this.payload.setDoublePayload(i,
-                    data.readDouble());
+        } else if ((flags & FLAG_INTERACTION) != 0) {
+            int interaction = data.readUnsignedByte();
+            boolean fine = (interaction & INTERACTION_FINE) != 0;
+            this.side = interaction & INTERACTION_SIDE;
+            this.setHitVectors(readHit(data,
+                            fine),
+                    readHit(data,
+                            fine),
+                    readHit(data,
+                            fine));
+        } else {
+            this.setHitVectors(0.0F,
+                    0.0F,
+                    0.0F);
+        }
+
+        ByteBuf deltaData = null;
+        int deltaSequence = 0;
+        if ((flags & FLAG_PAYLOAD) != 0) {
+            if ((flags & (FLAG_DELTA | FLAG_KEYFRAME)) != 0) deltaSequence = ByteBufHelper.readVarInt(data);
+            ByteBuf payloadData = data.readSlice(data.readUnsignedMedium());
+            if ((flags & FLAG_COMPRESSED) != 0) {
+                PacketCompressor compressor = this.getCompressor();
+                if (compressor == null || !compressor.isEnabled()) {
+                    // Never inflate what this side would not have sent
+                    throw new IllegalStateException("Compressed payload on channel " + this.getChannel()
+                            + " without compression enabled");
+                }
+                payloadData = compressor.decompress(payloadData);
+            } else {
+                payloadData.retain();
+            }
+            if ((flags & FLAG_DELTA) != 0) {
+                // Applied once the fields that may make up the key are read
+                deltaData = payloadData;
+            } else if (this.isPayloadLazy() && (flags & FLAG_KEYFRAME) == 0) {
+                try {
+                    this.payload = new PacketPayloadView(payloadData);
+                } catch (RuntimeException e) {
+                    payloadData.release();
+                    throw e;
+                }
+            } else {
+                try {
+                    this.payload = new PacketPayload(0, 0, 0, 0, 0);
+                    this.payload.readData(payloadData);
+                } finally {
+                    payloadData.release();
+                }
+            }
+        } else {
+            this.payload = new PacketPayload(0, 0, 0, 0, 0);
+        }
+        try {
+            PacketFieldCodec.forClass(this.getClass()).read(this,
+                    data);
+            if ((flags & (FLAG_DELTA | FLAG_KEYFRAME)) != 0) {
+                this.readDelta(deltaData,
+                        deltaSequence);
+            }
+        } catch (RuntimeException e) {
+            // The packet never reaches a handler that would release a view
+            this.release();
+            throw e;
+        } finally {
+            if (deltaData != null) deltaData.release();
+        }
+    }
+
+    /**
+     * Applies a delta to the payload last received for the same key, or
+     * keeps a keyframe for the next delta
+     * <p/>
+     * A delta not made against the payload held is dropped and keyframes
+     * are requested from the server
+     *
+     * @param deltaData the delta or null if the payload is a keyframe
+     * @param sequence  the number the payload was sent with
+     */
+    private void readDelta(ByteBuf deltaData, int sequence) {
+        PacketChannel channel = PacketHelper.getChannel(this.getChannel());
+        if (channel == null) {
+            throw new IllegalStateException("Delta synced packet on unknown channel " + this.getChannel());
+        }
+        PacketDeltaTracker tracker = this.deltaTracker != null ? this.deltaTracker : channel.getDeltaTracker();
+        Object key = this.getDeltaKey();
+        if (deltaData != null) {
+            PacketPayload base = tracker.getReceived(key,
+                    sequence);
+            if (base == null) {
+                this.deltaDropped = true;
+                this.payload = new PacketPayload(0, 0, 0, 0, 0);
+                if (this.deltaTracker == null && FMLCommonHandler.instance().getEffectiveSide() == Side.CLIENT) {
+                    channel.requestResync();
+                }
+                return;
+            }
+            this.payload = PacketPayload.readDelta(base,
+                    deltaData);
+        }
+        tracker.setReceived(key,
+                this.payload.copy(),
+                sequence);
+    }
+
+    /**
+     * Creates a detached copy of this packet for delivery within the JVM
+     * <p/>
+     * The header, payload and {@link PacketField}s are copied directly,
+     * packets that encode data of their own are copied through their encoding
+     *
+     * @return a new packet of the same class
+     */
+    public PacketUpdate copy() {
+        PacketUpdate copy;
+        try {
+            copy = this.getClass().newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to create packet " + this.getClass().getName(), e);
+        }
+        copy.setChannel(this.getChannel());
+        copy.setCorrelation(this.correlationId,
+                this.reply);
+        PacketFieldCodec codec = PacketFieldCodec.forClass(this.getClass());
+        if (codec.isCopyable()) {
+            copy.setPacketId(this.getPacketId());
+            copy.setCommand(this.command);
+            copy.setPosition(this.xPosition,
+                    this.yPosition,
+                    this.zPosition,
+                    this.side);
+            copy.setHitVectors(this.hitX,
+                    this.hitY,
+                    this.hitZ);
+            copy.payload = this.payload != null ? this.payload.copy() : new PacketPayload(0, 0, 0, 0, 0);
+            codec.copy(this,
+                    copy);
+        } else {
+            // Commands are kept as text, the dictionaries are per connection
+            PacketCommandDictionary commandDictionary = this.commandDictionary;
+            ByteBuf data = Unpooled.buffer();
+            try {
+                this.commandDictionary = null;
+                this.writeData(data);
+                copy.readData(data);
+            } finally {
+                this.commandDictionary = commandDictionary;
+                data.release();
+            }
+        }
+        return copy;
+    }
+
+    private PacketCompressor getCompressor() {
+        PacketChannel channel = PacketHelper.getChannel(this.getChannel());
+        return channel != null ? channel.getCompressor() : null;
+    }
+
+    /**
+     * Override this method to decode the payload on demand
+     * <p/>
+     * When true the payload is read through a {@link PacketPayloadView} over
+     * the incoming buffer, which is only valid until {@link #release()}
+     *
+     * @return false to decode the whole payload when the packet is read
+     */
+    protected boolean isPayloadLazy() {
+        return false;
+    }
+
+    /**
+     * Override this method to send the packet in another lane when queued
+     *
+     * @return the lane for the packet id by default
+     */
+    public PacketPriority getPriority() {
+        return PacketPriority.forPacketId(this.getPacketId());
+    }
+
+    /**
+     * Releases any buffer held by the payload once the packet is handled
+     */
+    public void release() {
+        if (this.payload != null) {
+            this.payload.release();
+        }
     }
 
     /**
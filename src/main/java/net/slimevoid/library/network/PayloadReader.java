@@ -0,0 +1,170 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+/**
+ * Sequential cursor over the typed sections of a payload
+ * <p/>
+ * Each section keeps its own position so values are read in the order they
+ * were written per type without tracking indices by hand. Nested structures
+ * can be handed on as zero copy slices with {@link #readSlice}.
+ *
+ * @see PayloadWriter
+ */
+public class PayloadReader {
+
+    private final PacketPayload payload;
+
+    private int intIndex;
+    private int floatIndex;
+    private int stringIndex;
+    private int boolIndex;
+    private int doubleIndex;
+
+    public PayloadReader(PacketPayload payload) {
+        this.payload = payload;
+    }
+
+    /**
+     * Creates a cursor starting part way through each section
+     *
+     * @param payload the payload to read
+     * @param index   the position to start from
+     */
+    public PayloadReader(PacketPayload payload, IndexInPayload index) {
+        this(payload);
+        this.seek(index);
+    }
+
+    private static IllegalStateException underflow(String type, int index, int size) {
+        return new IllegalStateException("Read past the end of the " + type + " section at " + index + " of " + size);
+    }
+
+    public int readInt() {
+        if (this.intIndex >= this.payload.getIntSize()) throw underflow("int",
+                this.intIndex,
+                this.payload.getIntSize());
+        return this.payload.getIntPayload(this.intIndex++);
+    }
+
+    public float readFloat() {
+        if (this.floatIndex >= this.payload.getFloatSize()) throw underflow("float",
+                this.floatIndex,
+                this.payload.getFloatSize());
+        return this.payload.getFloatPayload(this.floatIndex++);
+    }
+
+    public String readString() {
+        if (this.stringIndex >= this.payload.getStringSize()) throw underflow("String",
+                this.stringIndex,
+                this.payload.getStringSize());
+        return this.payload.getStringPayload(this.stringIndex++);
+    }
+
+    public boolean readBool() {
+        if (this.boolIndex >= this.payload.getBoolSize()) throw underflow("boolean",
+                this.boolIndex,
+                this.payload.getBoolSize());
+        return this.payload.getBoolPayload(this.boolIndex++);
+    }
+
+    public double readDouble() {
+        if (this.doubleIndex >= this.payload.getDoubleSize()) throw underflow("double",
+                this.doubleIndex,
+                this.payload.getDoubleSize());
+        return this.payload.getDoublePayload(this.doubleIndex++);
+    }
+
+    public int remainingInts() {
+        return this.payload.getIntSize() - this.intIndex;
+    }
+
+    public int remainingFloats() {
+        return this.payload.getFloatSize() - this.floatIndex;
+    }
+
+    public int remainingStrings() {
+        return this.payload.getStringSize() - this.stringIndex;
+    }
+
+    public int remainingBools() {
+        return this.payload.getBoolSize() - this.boolIndex;
+    }
+
+    public int remainingDoubles() {
+        return this.payload.getDoubleSize() - this.doubleIndex;
+    }
+
+    /**
+     * Checks whether any section has values left to read
+     *
+     * @return true if at least one value remains
+     */
+    public boolean hasRemaining() {
+        return this.remainingInts() > 0 || this.remainingFloats() > 0
+                || this.remainingStrings() > 0 || this.remainingBools() > 0
+                || this.remainingDoubles() > 0;
+    }
+
+    /**
+     * Retrieves the current position of each section
+     *
+     * @return the number of values read so far per type
+     */
+    public IndexInPayload getIndex() {
+        return new IndexInPayload(this.intIndex, this.floatIndex, this.stringIndex, this.boolIndex, this.doubleIndex);
+    }
+
+    /**
+     * Moves each section to the given position
+     *
+     * @param index the position to continue reading from
+     */
+    public void seek(IndexInPayload index) {
+        this.intIndex = index.intIndex;
+        this.floatIndex = index.floatIndex;
+        this.stringIndex = index.stringIndex;
+        this.boolIndex = index.boolIndex;
+        this.doubleIndex = index.doubleIndex;
+    }
+
+    /**
+     * Reads the next values of each section as a payload of their own
+     * <p/>
+     * The slice shares the values of the payload being read, nothing is
+     * copied
+     *
+     * @return a slice holding the given number of values per type
+     */
+    public PacketPayload readSlice(int ints, int floats, int strings, int bools, int doubles) {
+        IndexInPayload from = this.getIndex();
+        IndexInPayload to = new IndexInPayload(this.intIndex + ints, this.floatIndex + floats, this.stringIndex
+                + strings, this.boolIndex + bools, this.doubleIndex + doubles);
+        PacketPayload slice = this.payload.slice(from,
+                to);
+        this.seek(to);
+        return slice;
+    }
+
+    /**
+     * Reads every remaining value as a payload of their own
+     *
+     * @return a slice over the rest of each section
+     */
+    public PacketPayload readTail() {
+        return this.readSlice(this.remainingInts(),
+                this.remainingFloats(),
+                this.remainingStrings(),
+                this.remainingBools(),
+                this.remainingDoubles());
+    }
+}
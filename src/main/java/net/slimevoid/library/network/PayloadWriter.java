@@ -0,0 +1,100 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+/**
+ * Sequential writer for the typed sections of a payload
+ * <p/>
+ * The counterpart of {@link PayloadReader}, values are appended per type in
+ * the order they should be read back. Nested payloads are appended section
+ * by section so a reader can take them back out with
+ * {@link PayloadReader#readSlice}.
+ */
+public class PayloadWriter {
+
+    private final PacketPayload.Builder builder;
+
+    public PayloadWriter() {
+        this.builder = new PacketPayload.Builder();
+    }
+
+    /**
+     * Creates a writer with room for the expected number of values
+     */
+    public PayloadWriter(int intSize, int floatSize, int stringSize, int boolSize, int doubleSize) {
+        this.builder = new PacketPayload.Builder(intSize, floatSize, stringSize, boolSize, doubleSize);
+    }
+
+    public PayloadWriter writeInt(int value) {
+        this.builder.putInt(value);
+        return this;
+    }
+
+    public PayloadWriter writeFloat(float value) {
+        this.builder.putFloat(value);
+        return this;
+    }
+
+    public PayloadWriter writeString(String value) {
+        this.builder.putString(value);
+        return this;
+    }
+
+    public PayloadWriter writeBool(boolean value) {
+        this.builder.putBool(value);
+        return this;
+    }
+
+    public PayloadWriter writeDouble(double value) {
+        this.builder.putDouble(value);
+        return this;
+    }
+
+    /**
+     * Appends every value of another payload to the matching sections
+     *
+     * @param payload the values to append, may be a view or slice
+     * @return this writer
+     */
+    public PayloadWriter writePayload(PacketPayload payload) {
+        for (int i = 0; i < payload.getIntSize(); i++)
+            this.builder.putInt(payload.getIntPayload(i));
+        for (int i = 0; i < payload.getFloatSize(); i++)
+            this.builder.putFloat(payload.getFloatPayload(i));
+        for (int i = 0; i < payload.getStringSize(); i++)
+            this.builder.putString(payload.getStringPayload(i));
+        for (int i = 0; i < payload.getBoolSize(); i++)
+            this.builder.putBool(payload.getBoolPayload(i));
+        for (int i = 0; i < payload.getDoubleSize(); i++)
+            this.builder.putDouble(payload.getDoublePayload(i));
+        return this;
+    }
+
+    /**
+     * Retrieves the current position of each section
+     *
+     * @return the number of values written so far per type
+     */
+    public IndexInPayload getIndex() {
+        return this.builder.getIndex();
+    }
+
+    /**
+     * Creates the payload from the values written so far, after which the
+     * writer starts afresh
+     *
+     * @return the new PacketPayload
+     */
+    public PacketPayload build() {
+        return this.builder.build();
+    }
+}
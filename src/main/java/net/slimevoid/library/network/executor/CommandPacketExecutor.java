@@ -0,0 +1,108 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network.executor;
+
+import com.google.common.collect.Maps;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.slimevoid.library.network.PacketChannel;
+import net.slimevoid.library.network.PacketCommandDictionary;
+import net.slimevoid.library.network.PacketUpdate;
+import net.slimevoid.library.util.helpers.PacketHelper;
+
+import java.util.Map;
+
+/**
+ * Executor dispatching packets to a handler per command
+ * <p/>
+ * Handlers are looked up in a table indexed by the command id from the
+ * channel's {@link PacketCommandDictionary}, falling back to the command
+ * string for commands that were not registered with the channel.
+ */
+public abstract class CommandPacketExecutor<REQ extends PacketUpdate, REPLY extends IMessage> extends PacketExecutor<REQ, REPLY> {
+
+    private final String channel;
+
+    private final Map<String, IPacketExecutor> commands = Maps.newConcurrentMap();
+
+    private volatile PacketCommandDictionary dictionary;
+
+    private volatile IPacketExecutor[] table = new IPacketExecutor[0];
+
+    /**
+     * @param channel the channel the executor is registered on
+     */
+    protected CommandPacketExecutor(String channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Registers the handler for a command
+     *
+     * @param command  the command
+     * @param executor the handler
+     */
+    protected void registerCommand(String command, IPacketExecutor executor) {
+        this.commands.put(command,
+                executor);
+        this.dictionary = null;
+    }
+
+    @Override
+    public PacketUpdate execute(PacketUpdate packet, World world, EntityPlayer entityplayer) {
+        IPacketExecutor executor = this.getExecutor(packet);
+        if (executor != null) {
+            return executor.execute(packet,
+                    world,
+                    entityplayer);
+        }
+        return this.executeUnknown(packet,
+                world,
+                entityplayer);
+    }
+
+    /**
+     * Called for packets whose command has no handler
+     */
+    protected PacketUpdate executeUnknown(PacketUpdate packet, World world, EntityPlayer entityplayer) {
+        return null;
+    }
+
+    private IPacketExecutor getExecutor(PacketUpdate packet) {
+        PacketChannel channel = PacketHelper.getChannel(this.channel);
+        if (channel != null) {
+            PacketCommandDictionary inbound = channel.getInboundCommands();
+            if (inbound != this.dictionary) {
+                this.buildTable(inbound);
+            }
+            IPacketExecutor[] table = this.table;
+            int id = packet.getCommandId();
+            if (id >= 0 && id < table.length && table[id] != null) {
+                return table[id];
+            }
+        }
+        return this.commands.get(packet.getCommand());
+    }
+
+    private synchronized void buildTable(PacketCommandDictionary inbound) {
+        IPacketExecutor[] table = new IPacketExecutor[inbound.size()];
+        for (Map.Entry<String, IPacketExecutor> entry : this.commands.entrySet()) {
+            int id = inbound.getId(entry.getKey());
+            if (id >= 0 && id < table.length) {
+                table[id] = entry.getValue();
+            }
+        }
+        this.table = table;
+        this.dictionary = inbound;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network.executor;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.slimevoid.library.network.PacketBatch;
+import net.slimevoid.library.network.PacketChannel;
+import net.slimevoid.library.util.helpers.ByteBufHelper;
+
+/**
+ * Unpacks a {@link PacketBatch} and hands each framed message to the
+ * executor registered for it on the channel
+ */
+public class PacketBatchExecutor implements IMessageHandler<PacketBatch, IMessage> {
+
+    private final PacketChannel channel;
+
+    public PacketBatchExecutor(PacketChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public IMessage onMessage(PacketBatch message, MessageContext ctx) {
+        ByteBuf frames = message.getFrames();
+        while (frames.isReadable()) {
+            int discriminator = frames.readUnsignedByte();
+            ByteBuf frame = frames.readSlice(ByteBufHelper.readVarInt(frames));
+            this.channel.dispatch(discriminator,
+                    frame,
+                    ctx);
+        }
+        return null;
+    }
+}
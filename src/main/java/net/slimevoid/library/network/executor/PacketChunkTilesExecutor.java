@@ -0,0 +1,54 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network.executor;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.client.FMLClientHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+import net.slimevoid.library.network.PacketChunkTiles;
+import net.slimevoid.library.tileentity.TileEntityBase;
+
+/**
+ * Applies the tile descriptions of a chunk on the client thread
+ */
+public class PacketChunkTilesExecutor implements IMessageHandler<PacketChunkTiles, IMessage> {
+
+    @Override
+    public IMessage onMessage(final PacketChunkTiles message, MessageContext ctx) {
+        this.schedule(message);
+        return null;
+    }
+
+    @SideOnly(Side.CLIENT)
+    private void schedule(final PacketChunkTiles message) {
+        final Minecraft minecraft = FMLClientHandler.instance().getClient();
+        minecraft.addScheduledTask(new Runnable() {
+            @Override
+            public void run() {
+                World world = minecraft.theWorld;
+                if (world == null) return;
+                for (int i = 0; i < message.getTileCount(); i++) {
+                    TileEntity tile = world.getTileEntity(message.getPosition(i));
+                    if (tile instanceof TileEntityBase) {
+                        ((TileEntityBase) tile).readDescription(message.getDescription(i));
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network.executor;
+
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.slimevoid.library.network.PacketChannel;
+import net.slimevoid.library.network.PacketDeltaResync;
+
+/**
+ * Restarts delta sync for a player whose client lost track of it
+ */
+public class PacketDeltaResyncExecutor implements IMessageHandler<PacketDeltaResync, IMessage> {
+
+    private final PacketChannel channel;
+
+    public PacketDeltaResyncExecutor(PacketChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public IMessage onMessage(PacketDeltaResync message, MessageContext ctx) {
+        this.channel.getDeltaTracker().removePlayer(ctx.getServerHandler().playerEntity);
+        return null;
+    }
+}
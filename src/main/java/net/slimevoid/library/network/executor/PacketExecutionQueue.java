@@ -0,0 +1,159 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network.executor;
+
+import net.minecraft.network.NetHandlerPlayServer;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.slimevoid.library.core.SlimevoidCore;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+import net.slimevoid.library.core.lib.CoreLib;
+import net.slimevoid.library.network.PacketChannel;
+import net.slimevoid.library.network.PacketUpdate;
+import net.slimevoid.library.util.helpers.PacketHelper;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Packets waiting to be executed on the main thread of one side
+ * <p/>
+ * Network threads add packets without blocking, the main thread drains them
+ * at the start of each tick up to the configured count and time budget.
+ * Anything left over stays queued for the next tick. Packets arriving while
+ * the queue is full are dropped, packets from players who have since logged
+ * out are discarded unexecuted.
+ */
+public class PacketExecutionQueue {
+
+    private static final PacketExecutionQueue client = new PacketExecutionQueue(Side.CLIENT);
+    private static final PacketExecutionQueue server = new PacketExecutionQueue(Side.SERVER);
+
+    private final Side side;
+
+    private final Queue<QueuedPacket<?>> packets = new ConcurrentLinkedQueue<QueuedPacket<?>>();
+
+    /**
+     * Size of the queue, kept apart as counting the queue walks it
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    private PacketExecutionQueue(Side side) {
+        this.side = side;
+    }
+
+    /**
+     * Retrieves the queue for the side receiving a packet
+     *
+     * @param side the receiving side
+     * @return the queue
+     */
+    public static PacketExecutionQueue getQueue(Side side) {
+        return side == Side.CLIENT ? client : server;
+    }
+
+    /**
+     * Queues a packet for execution on the main thread
+     *
+     * @param executor the executor handling the packet
+     * @param packet   the packet
+     * @param ctx      the context the packet arrived in
+     */
+    public <REQ extends PacketUpdate> void add(PacketExecutor<REQ, ?> executor, REQ packet, MessageContext ctx) {
+        if (ConfigurationLib.maxQueuedPackets > 0 && this.size.get() >= ConfigurationLib.maxQueuedPackets) {
+            SlimevoidCore.console(CoreLib.MOD_ID,
+                    "Execution queue full, dropping packet " + packet,
+                    1);
+            packet.release();
+            return;
+        }
+        this.size.incrementAndGet();
+        this.packets.add(new QueuedPacket<REQ>(executor, packet, ctx));
+    }
+
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * Executes queued packets until the queue is empty or the budget for
+     * this tick is spent
+     *
+     * @return the number of packets executed
+     */
+    public int drain() {
+        int maxPackets = ConfigurationLib.maxQueuedPacketsPerTick;
+        long deadline = System.nanoTime() + ConfigurationLib.maxQueuedPacketMillis * 1000000L;
+        int count = 0;
+        QueuedPacket<?> queued;
+        while (count < maxPackets && (queued = this.packets.poll()) != null) {
+            this.size.decrementAndGet();
+            if (this.side == Side.SERVER && isDisconnected(queued.ctx)) {
+                queued.packet.release();
+                continue;
+            }
+            count++;
+            try {
+                this.reply(queued.packet,
+                        queued.execute(),
+                        queued.ctx);
+            } catch (RuntimeException e) {
+                SlimevoidCore.console(CoreLib.MOD_ID,
+                        "Failed to execute queued packet " + queued.packet + ": " + e,
+                        2);
+            }
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether the player who sent a packet has logged out since
+     */
+    private static boolean isDisconnected(MessageContext ctx) {
+        NetHandlerPlayServer handler = ctx.getServerHandler().playerEntity.playerNetServerHandler;
+        return handler == null || !handler.getNetworkManager().isChannelOpen();
+    }
+
+    private void reply(PacketUpdate packet, IMessage reply, MessageContext ctx) {
+        if (reply == null) return;
+        PacketChannel channel = PacketHelper.getChannel(packet.getChannel());
+        if (channel == null) return;
+        if (this.side == Side.CLIENT) {
+            channel.sendToServer(reply);
+        } else {
+            channel.sendTo(reply,
+                    ctx.getServerHandler().playerEntity);
+        }
+    }
+
+    private static class QueuedPacket<REQ extends PacketUpdate> {
+        private final PacketExecutor<REQ, ?> executor;
+        private final REQ packet;
+        private final MessageContext ctx;
+
+        QueuedPacket(PacketExecutor<REQ, ?> executor, REQ packet, MessageContext ctx) {
+            this.executor = executor;
+            this.packet = packet;
+            this.ctx = ctx;
+        }
+
+        IMessage execute() {
+            return this.executor.handle(this.packet,
+                    this.ctx);
+        }
+    }
+}
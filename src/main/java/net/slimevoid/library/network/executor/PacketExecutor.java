@@ -1,6 +1,9 @@
 package net.slimevoid.library.network.executor;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.network.NetHandlerPlayServer;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.client.FMLClientHandler;
@@ -9,13 +12,83 @@ import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+import net.slimevoid.library.network.PacketChannel;
+import net.slimevoid.library.network.PacketRequestTracker;
 import net.slimevoid.library.network.PacketUpdate;
+import net.slimevoid.library.util.helpers.PacketHelper;
 
 public abstract class PacketExecutor<REQ extends PacketUpdate, REPLY extends IMessage> implements IPacketExecutor, IMessageHandler<REQ, REPLY> {
 
-    @SuppressWarnings("unchecked")
     @Override
     public REPLY onMessage(REQ message, MessageContext ctx) {
+        if (message.isDeltaDropped()) {
+            // Keyframes have been requested, the next one brings the target up to date
+            message.release();
+            return null;
+        }
+        if (message.isReply()) {
+            // Completed right away, the future's listeners pick the thread
+            this.completeReply(message,
+                    ctx);
+            return null;
+        }
+        if (ctx.side == Side.SERVER) {
+            PacketChannel channel = PacketHelper.getChannel(message.getChannel());
+            if (channel != null && !channel.getRateLimiter().tryAcquire(this,
+                    message,
+                    ctx,
+                    ctx.getServerHandler().playerEntity)) {
+                // Over the sender's allowance, deferred or dropped
+                return null;
+            }
+        }
+        if (this.isQueued()) {
+            PacketExecutionQueue.getQueue(ctx.side).add(this,
+                    message,
+                    ctx);
+            return null;
+        }
+        return this.handle(message,
+                ctx);
+    }
+
+    /**
+     * Override this method to execute packets on the main thread
+     * <p/>
+     * Queued packets are executed at the start of the next server or client
+     * tick within the budget set in the configuration, so the network thread
+     * never waits on world access
+     *
+     * @return false to execute packets on the network thread as they arrive
+     */
+    protected boolean isQueued() {
+        return false;
+    }
+
+    /**
+     * Whether packets for this executor may be handed over in memory by
+     * {@link net.slimevoid.library.network.PacketLoopback}, only queued
+     * executors are since there is no network thread to run the others on
+     */
+    public boolean canLoopback() {
+        return this.isQueued();
+    }
+
+    /**
+     * Resolves the player and world for the packet and executes it
+     *
+     * @param message the packet
+     * @param ctx     the context the packet arrived in
+     * @return the reply, if any
+     */
+    @SuppressWarnings("unchecked")
+    public REPLY handle(REQ message, MessageContext ctx) {
+        if (message.isReply()) {
+            this.completeReply(message,
+                    ctx);
+            return null;
+        }
         EntityPlayer entityplayer = null;
         World world = null;
         switch (ctx.side) {
@@ -29,7 +102,71 @@ public abstract class PacketExecutor<REQ extends PacketUpdate, REPLY extends IMe
                 world = entityplayer.worldObj;
                 break;
         }
-        return (REPLY) this.execute(message, world, entityplayer);
+        // Packets created locally may have no channel to record against
+        PacketChannel channel = ConfigurationLib.packetStatistics && message.getChannel() != null ? PacketHelper.getChannel(message.getChannel()) : null;
+        long time = channel != null ? System.nanoTime() : 0L;
+        try {
+            if (ctx.side == Side.SERVER && message.isRequest()) {
+                this.request(message,
+                        world,
+                        (EntityPlayerMP) entityplayer);
+                return null;
+            }
+            return (REPLY) this.execute(message, world, entityplayer);
+        } finally {
+            message.release();
+            if (channel != null) {
+                channel.getStatistics().recordHandled(message.getPacketId(),
+                        System.nanoTime() - time);
+            }
+        }
+    }
+
+    /**
+     * Override this method to reply to requests asynchronously
+     * <p/>
+     * The future may be completed from any thread, the reply is sent to the
+     * requesting player at the end of the server tick. The request is
+     * released once this method returns, so copy anything needed later.
+     *
+     * @return by default the result of {@link #execute}
+     * @see PacketChannel#sendRequest(PacketUpdate)
+     */
+    protected ListenableFuture<? extends PacketUpdate> executeAsync(REQ message, World world, EntityPlayer entityplayer) {
+        return Futures.immediateFuture(this.execute(message,
+                world,
+                entityplayer));
+    }
+
+    private void request(REQ message, World world, EntityPlayerMP entityplayer) {
+        PacketChannel channel = PacketHelper.getChannel(message.getChannel());
+        PacketRequestTracker tracker = channel.getRequestTracker();
+        if (!tracker.tryAccept(entityplayer)) {
+            tracker.reject(entityplayer,
+                    message.getCorrelationId(),
+                    "Too many requests in flight");
+            return;
+        }
+        ListenableFuture<? extends PacketUpdate> future;
+        try {
+            future = this.executeAsync(message,
+                    world,
+                    entityplayer);
+        } catch (RuntimeException e) {
+            future = Futures.immediateFailedFuture(e);
+        }
+        tracker.reply(entityplayer,
+                message.getCorrelationId(),
+                future);
+    }
+
+    private void completeReply(REQ message, MessageContext ctx) {
+        // Only the server replies, clients cannot complete each other's requests
+        PacketChannel channel = ctx.side == Side.CLIENT ? PacketHelper.getChannel(message.getChannel()) : null;
+        if (channel == null || !channel.getRequestTracker().complete(message)) {
+            // Timed out or unknown, nobody else will release it
+            message.release();
+        }
     }
 
     @SideOnly(Side.CLIENT)
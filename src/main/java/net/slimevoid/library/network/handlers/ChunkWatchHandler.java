@@ -0,0 +1,70 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network.handlers;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.ChunkWatchEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.PlayerEvent.PlayerLoggedOutEvent;
+import net.slimevoid.library.network.ChunkTileSync;
+import net.slimevoid.library.network.ChunkWatcherRegistry;
+import net.slimevoid.library.util.helpers.PacketHelper;
+
+/**
+ * Keeps the {@link ChunkWatcherRegistry} and the delta sync state of the
+ * channels current
+ * <p/>
+ * Must be registered on both the Forge and the FML event bus
+ */
+public class ChunkWatchHandler {
+
+    @SubscribeEvent
+    public void onChunkWatch(ChunkWatchEvent.Watch event) {
+        ChunkWatcherRegistry.watch(event.player,
+                event.chunk);
+        // The chunk data has been sent by now, so its tiles can follow
+        ChunkTileSync.sendChunk(event.player,
+                event.chunk);
+    }
+
+    @SubscribeEvent
+    public void onChunkUnWatch(ChunkWatchEvent.UnWatch event) {
+        ChunkWatcherRegistry.unwatch(event.player,
+                event.chunk);
+        PacketHelper.unwatchChunk(event.player,
+                event.chunk);
+    }
+
+    @SubscribeEvent
+    public void onChunkUnload(ChunkEvent.Unload event) {
+        if (event.world.isRemote) {
+            PacketHelper.unloadChunk(event.getChunk().xPosition,
+                    event.getChunk().zPosition);
+        }
+    }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event) {
+        if (event.world.isRemote) {
+            PacketHelper.clearReceivedDeltas();
+        }
+    }
+
+    @SubscribeEvent
+    public void onPlayerLoggedOut(PlayerLoggedOutEvent event) {
+        if (event.player instanceof EntityPlayerMP) {
+            ChunkWatcherRegistry.removePlayer((EntityPlayerMP) event.player);
+        }
+    }
+}
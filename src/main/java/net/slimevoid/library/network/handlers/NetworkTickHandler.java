@@ -0,0 +1,70 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network.handlers;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ClientTickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+import net.minecraftforge.fml.relauncher.Side;
+import net.slimevoid.library.core.lib.ConfigurationLib;
+import net.slimevoid.library.network.ChunkTileSync;
+import net.slimevoid.library.network.executor.PacketExecutionQueue;
+import net.slimevoid.library.util.helpers.PacketHelper;
+
+/**
+ * Tick work for the library channels
+ */
+public class NetworkTickHandler {
+
+    private int statisticsTicks = 0;
+
+    private int serverExpireTicks = 0;
+
+    private int clientExpireTicks = 0;
+
+    @SubscribeEvent
+    public void onServerTick(ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.START) {
+            PacketHelper.processDeferred();
+            PacketExecutionQueue.getQueue(Side.SERVER).drain();
+            if (++this.serverExpireTicks >= 20) {
+                this.serverExpireTicks = 0;
+                PacketHelper.expireTransfers();
+                PacketHelper.expireDeltas();
+            }
+        } else {
+            PacketHelper.processRequests();
+            ChunkTileSync.flush();
+            PacketHelper.flush();
+            if (ConfigurationLib.packetStatistics && ConfigurationLib.packetStatisticsDumpSeconds > 0
+                    && ++this.statisticsTicks >= ConfigurationLib.packetStatisticsDumpSeconds * 20) {
+                this.statisticsTicks = 0;
+                PacketHelper.dumpStatistics(MinecraftServer.getServer().getFile("logs/packetstats.csv"));
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public void onClientTick(ClientTickEvent event) {
+        if (event.phase == TickEvent.Phase.START) {
+            PacketExecutionQueue.getQueue(Side.CLIENT).drain();
+            PacketHelper.expireRequests();
+            if (++this.clientExpireTicks >= 20) {
+                this.clientExpireTicks = 0;
+                PacketHelper.expireTransfers();
+                PacketHelper.expireReceivedDeltas();
+            }
+        }
+    }
+}
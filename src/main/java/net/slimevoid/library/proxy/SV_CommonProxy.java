@@ -14,6 +14,12 @@ package net.slimevoid.library.proxy;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.world.World;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.fml.common.FMLCommonHandler;
+import net.slimevoid.library.network.handlers.ChunkWatchHandler;
+import net.slimevoid.library.network.handlers.NetworkTickHandler;
+import net.slimevoid.library.network.handlers.PlayerConnectionHandler;
+import net.slimevoid.library.tileentity.TileTickHandler;
 
 import java.io.File;
 
@@ -44,10 +50,18 @@ public class SV_CommonProxy implements ICommonProxy {
 
     @Override
     public void registerTickHandlers() {
+        FMLCommonHandler.instance().bus().register(new NetworkTickHandler());
     }
 
     @Override
     public void registerEventHandlers() {
+        ChunkWatchHandler chunkWatchHandler = new ChunkWatchHandler();
+        MinecraftForge.EVENT_BUS.register(chunkWatchHandler);
+        FMLCommonHandler.instance().bus().register(chunkWatchHandler);
+        FMLCommonHandler.instance().bus().register(new PlayerConnectionHandler());
+        TileTickHandler tileTickHandler = new TileTickHandler();
+        MinecraftForge.EVENT_BUS.register(tileTickHandler);
+        FMLCommonHandler.instance().bus().register(tileTickHandler);
     }
 
     @Override
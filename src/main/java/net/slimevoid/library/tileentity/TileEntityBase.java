@@ -12,7 +12,6 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.network.NetworkManager;
 import net.minecraft.network.Packet;
 import net.minecraft.network.play.server.S35PacketUpdateTileEntity;
-import net.minecraft.server.gui.IUpdatePlayerListBox;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.*;
 import net.minecraft.world.Explosion;
@@ -20,20 +19,27 @@ import net.minecraft.world.World;
 import net.minecraftforge.common.ForgeHooks;
 import net.slimevoid.library.blocks.BlockBase;
 import net.slimevoid.library.core.lib.NBTLib;
+import net.slimevoid.library.network.ChunkTileSync;
 import net.slimevoid.library.util.helpers.BlockHelper;
 import net.slimevoid.library.util.helpers.ItemHelper;
+import net.slimevoid.library.util.nbt.NBTStreamWriter;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public abstract class TileEntityBase extends TileEntity implements IUpdatePlayerListBox, IInventory {
+public abstract class TileEntityBase extends TileEntity implements IInventory {
 
     protected long tickSchedule;
+    /**
+     * Wheel tick this tile is filed under, -1 when not on the wheel
+     */
+    private long scheduledTick;
     protected int rotation;
     protected boolean active;
 
     public TileEntityBase() {
         this.tickSchedule = -1L;
+        this.scheduledTick = -1L;
         this.rotation = 0;
         this.active = false;
     }
@@ -118,16 +124,56 @@ public abstract class TileEntityBase extends TileEntity implements IUpdatePlayer
             return;
         } else {
             this.tickSchedule = worldTime;
+            if (!this.getWorld().isRemote) {
+                this.scheduledTick = TileTickScheduler.getScheduler(this.getWorld()).schedule(this,
+                        time);
+            }
             this.markBlockDirty();
             return;
         }
     }
 
+    /**
+     * Runs the scheduled tick if the wheel entry is still the current one
+     *
+     * @param wheelTick the wheel tick the entry was filed under
+     */
+    void runScheduledTick(long wheelTick) {
+        if (this.scheduledTick != wheelTick) return;
+        this.scheduledTick = -1L;
+        this.tickSchedule = -1L;
+        this.onTileTick();
+        this.markBlockDirty();
+    }
+
+    /**
+     * Puts a schedule read from NBT back on the wheel, capped at a minute
+     * as the polling tick used to
+     */
+    @Override
+    public void validate() {
+        super.validate();
+        World world = this.getWorld();
+        if (this.tickSchedule >= 0L && world != null && !world.isRemote) {
+            long delay = Math.min(this.tickSchedule - world.getWorldTime(),
+                    1200L);
+            this.scheduledTick = TileTickScheduler.getScheduler(world).schedule(this,
+                    delay);
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        this.scheduledTick = -1L;
+    }
+
     public int getLightValue() {
         return 0;
     }
 
     public void updateBlock() {
+        this.syncDescription();
         this.getWorld().markBlockForUpdate(this.pos);
         this.getWorld().notifyLightSet(this.pos);
     }
@@ -154,19 +200,6 @@ public abstract class TileEntityBase extends TileEntity implements IUpdatePlayer
         }
     }
 
-    @Override
-    public void update() {
-        if (this.getWorld().isRemote) return;
-        if (this.tickSchedule < 0L) return;
-        long worldTime = this.getWorld().getWorldTime();
-        if (this.tickSchedule > worldTime + 1200L) this.tickSchedule = worldTime + 1200L;
-        else if (this.tickSchedule <= worldTime) {
-            this.tickSchedule = -1L;
-            this.onTileTick();
-            this.markBlockDirty();
-        }
-    }
-
     public EnumFacing getFacing() {
         switch (this.rotation) {
             case 0:
@@ -265,12 +298,22 @@ public abstract class TileEntityBase extends TileEntity implements IUpdatePlayer
 
     @Override
     public void onDataPacket(NetworkManager net, S35PacketUpdateTileEntity pkt) {
-        this.readFromNBT(pkt.getNbtCompound());
+        this.readDescription(pkt.getNbtCompound());
+    }
+
+    /**
+     * Applies a description received from the server
+     *
+     * @param nbttagcompound the description written by {@link #getDescription()}
+     */
+    public void readDescription(NBTTagCompound nbttagcompound) {
+        this.readFromNBT(nbttagcompound);
         this.onInventoryChanged();
         this.updateBlock();
     }
 
     public void onInventoryChanged() {
+        this.syncDescription();
         this.markDirty();
         this.onInventoryHasChanged(this.worldObj,
                 this.pos);
@@ -303,11 +346,79 @@ public abstract class TileEntityBase extends TileEntity implements IUpdatePlayer
     public void closeInventory(EntityPlayer entityplayer) {
     }
 
-    @Override
-    public Packet getDescriptionPacket() {
+    /**
+     * Override this method to sync the tile with the rest of its chunk
+     * <p/>
+     * Bulk synced tiles send no description packet of their own, they are
+     * sent a chunk at a time by {@link ChunkTileSync} when a player starts
+     * watching the chunk and at the end of any tick in which
+     * {@link #updateBlock()} or {@link #onInventoryChanged()} was called
+     *
+     * @return false to send a description packet per tile
+     */
+    public boolean isBulkSynced() {
+        return false;
+    }
+
+    /**
+     * Retrieves the data sent to clients to describe the tile
+     *
+     * @return a new compound
+     */
+    public NBTTagCompound getDescription() {
         NBTTagCompound nbttagcompound = new NBTTagCompound();
         this.writeToNBT(nbttagcompound);
-        Packet packet = new S35PacketUpdateTileEntity(pos, 0, nbttagcompound);
+        return nbttagcompound;
+    }
+
+    /**
+     * Override this method to write the description without building a
+     * compound
+     * <p/>
+     * Streamed tiles override {@link #writeDescription(NBTStreamWriter)},
+     * calling super first, and write the same keys their readFromNBT reads
+     *
+     * @return false to write the compound from {@link #getDescription()}
+     */
+    public boolean isDescriptionStreamed() {
+        return false;
+    }
+
+    /**
+     * Writes the entries of the description into the open compound of a
+     * bulk sync, the position is left out and restored by the receiver
+     *
+     * @param writer the writer
+     */
+    public void writeDescription(NBTStreamWriter writer) {
+        if (this.isDescriptionStreamed()) {
+            writer.writeLong(NBTLib.TILE_TICK_SCHEDULE,
+                    this.tickSchedule);
+            writer.writeByte(NBTLib.TILE_ROTATION,
+                    (byte) this.rotation);
+            writer.writeByte(NBTLib.TILE_ACTIVE,
+                    (byte) (this.active ? 1 : 0));
+        } else {
+            NBTTagCompound nbttagcompound = this.getDescription();
+            nbttagcompound.removeTag("x");
+            nbttagcompound.removeTag("y");
+            nbttagcompound.removeTag("z");
+            writer.writeEntries(nbttagcompound);
+        }
+    }
+
+    private void syncDescription() {
+        if (this.isBulkSynced() && this.worldObj != null && !this.worldObj.isRemote) {
+            ChunkTileSync.markDirty(this);
+        }
+    }
+
+    @Override
+    public Packet getDescriptionPacket() {
+        if (this.isBulkSynced()) {
+            return null;
+        }
+        Packet packet = new S35PacketUpdateTileEntity(pos, 0, this.getDescription());
         return packet;
     }
 }
@@ -0,0 +1,28 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.tileentity;
+
+import net.minecraft.server.gui.IUpdatePlayerListBox;
+
+/**
+ * Base for tiles that need to run every tick
+ * <p/>
+ * {@link TileEntityBase} is not ticked by the world, its scheduled ticks come
+ * from the {@link TileTickScheduler}. Extend this instead when the tile has
+ * per tick work of its own.
+ */
+public abstract class TileEntityTickingBase extends TileEntityBase implements IUpdatePlayerListBox {
+
+    @Override
+    public void update() {
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.tileentity;
+
+import com.google.common.collect.Maps;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel running the scheduled ticks of a world's tiles
+ * <p/>
+ * Each level has {@link #SLOTS} slots, each slot of a level spanning a whole
+ * turn of the level below. A tile is filed in the lowest level whose span
+ * covers its delay and cascades down as the wheel turns, so a tick only
+ * touches the tiles that are due. Rescheduling leaves the old entry behind;
+ * it is dropped when reached because the tile no longer expects it.
+ * Runs on the server thread only.
+ *
+ * @see TileEntityBase#scheduleTick(int)
+ */
+public class TileTickScheduler {
+
+    private static final int SLOT_BITS  = 6;
+    private static final int SLOTS      = 1 << SLOT_BITS;
+    private static final int SLOT_MASK  = SLOTS - 1;
+    private static final int LEVELS     = 4;
+
+    /**
+     * The longest delay the wheel can hold, longer delays are clamped to it
+     */
+    public static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1L;
+
+    private static final Map<World, TileTickScheduler> schedulers = Maps.newHashMap();
+
+    private final World world;
+    private final List<Entry>[][] wheel;
+    private long tick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TileTickScheduler(World world) {
+        this.world = world;
+        this.wheel = new List[LEVELS][SLOTS];
+        this.tick = 0L;
+        this.size = 0;
+    }
+
+    /**
+     * Retrieves the scheduler of a world, creating it if needed
+     *
+     * @param world the world
+     * @return the scheduler
+     */
+    public static TileTickScheduler getScheduler(World world) {
+        TileTickScheduler scheduler = schedulers.get(world);
+        if (scheduler == null) {
+            scheduler = new TileTickScheduler(world);
+            schedulers.put(world,
+                    scheduler);
+        }
+        return scheduler;
+    }
+
+    /**
+     * Turns the wheel of a world by one tick, if it has one
+     *
+     * @param world the world
+     */
+    public static void tickWorld(World world) {
+        TileTickScheduler scheduler = schedulers.get(world);
+        if (scheduler != null) {
+            scheduler.advance();
+        }
+    }
+
+    /**
+     * Drops the wheel of an unloading world with everything still on it
+     *
+     * @param world the world
+     */
+    public static void unloadWorld(World world) {
+        schedulers.remove(world);
+    }
+
+    /**
+     * Files a tile to tick after the given delay
+     *
+     * @param tile  the tile
+     * @param delay ticks from now, at least one
+     * @return the wheel tick the tile is due on
+     */
+    public long schedule(TileEntityBase tile, long delay) {
+        if (delay < 1L) delay = 1L;
+        if (delay > MAX_DELAY) delay = MAX_DELAY;
+        long due = this.tick + delay;
+        this.file(new Entry(tile, due));
+        return due;
+    }
+
+    /**
+     * @return the number of entries on the wheel, stale ones included
+     */
+    public int size() {
+        return this.size;
+    }
+
+    private void file(Entry entry) {
+        long delta = entry.due - this.tick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) (entry.due >>> (SLOT_BITS * level)) & SLOT_MASK;
+        List<Entry> entries = this.wheel[level][slot];
+        if (entries == null) {
+            entries = new ArrayList<Entry>();
+            this.wheel[level][slot] = entries;
+        }
+        entries.add(entry);
+        this.size++;
+    }
+
+    private List<Entry> take(int level, int slot) {
+        List<Entry> entries = this.wheel[level][slot];
+        if (entries != null && !entries.isEmpty()) {
+            this.wheel[level][slot] = null;
+            this.size -= entries.size();
+            return entries;
+        }
+        return null;
+    }
+
+    private void advance() {
+        for (Entry entry : this.turn()) {
+            TileEntityBase tile = entry.tile;
+            if (tile.isInvalid() || tile.getWorld() != this.world) continue;
+            BlockPos pos = tile.getPos();
+            if (!this.world.isBlockLoaded(pos) || this.world.getTileEntity(pos) != tile) continue;
+            tile.runScheduledTick(entry.due);
+        }
+    }
+
+    /**
+     * Turns the wheel by one tick, cascading the levels that wrap
+     *
+     * @return the entries due on the new tick, stale ones included
+     */
+    List<Entry> turn() {
+        this.tick++;
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if ((this.tick & ((1L << shift) - 1L)) != 0L) break;
+            List<Entry> cascading = this.take(level,
+                    (int) (this.tick >>> shift) & SLOT_MASK);
+            if (cascading != null) {
+                for (Entry entry : cascading) {
+                    this.file(entry);
+                }
+            }
+        }
+        List<Entry> due = this.take(0,
+                (int) this.tick & SLOT_MASK);
+        return due != null ? due : Collections.<Entry>emptyList();
+    }
+
+    static class Entry {
+
+        final TileEntityBase tile;
+        final long due;
+
+        Entry(TileEntityBase tile, long due) {
+            this.tile = tile;
+            this.due = due;
+        }
+    }
+}
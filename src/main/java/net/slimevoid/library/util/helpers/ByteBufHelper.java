@@ -0,0 +1,153 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.util.helpers;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Variable length integer encoding for compact packet data
+ * <p/>
+ * Values are written 7 bits at a time with the high bit of each byte marking
+ * that another byte follows. Signed values are zigzag encoded first so that
+ * small negative numbers stay small on the wire.
+ */
+public class ByteBufHelper {
+
+    /**
+     * Writes an unsigned variable length int
+     *
+     * @param data  the buffer to write to
+     * @param value the value to write
+     */
+    public static void writeVarInt(ByteBuf data, int value) {
+        while ((value & ~0x7F) != 0) {
+            data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    /**
+     * Reads an unsigned variable length int
+     *
+     * @param data the buffer to read from
+     * @return the value
+     */
+    public static int readVarInt(ByteBuf data) {
+        int value = 0;
+        int shift = 0;
+        byte in;
+        do {
+            if (shift > 28) {
+                throw new IllegalStateException("VarInt too big");
+            }
+            in = data.readByte();
+            value |= (in & 0x7F) << shift;
+            shift += 7;
+        } while ((in & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Writes an unsigned variable length long
+     *
+     * @param data  the buffer to write to
+     * @param value the value to write
+     */
+    public static void writeVarLong(ByteBuf data, long value) {
+        while ((value & ~0x7FL) != 0L) {
+            data.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+
+    /**
+     * Reads an unsigned variable length long
+     *
+     * @param data the buffer to read from
+     * @return the value
+     */
+    public static long readVarLong(ByteBuf data) {
+        long value = 0L;
+        int shift = 0;
+        byte in;
+        do {
+            if (shift > 63) {
+                throw new IllegalStateException("VarLong too big");
+            }
+            in = data.readByte();
+            value |= (long) (in & 0x7F) << shift;
+            shift += 7;
+        } while ((in & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Writes a signed int using zigzag encoding
+     *
+     * @param data  the buffer to write to
+     * @param value the value to write
+     */
+    public static void writeSignedVarInt(ByteBuf data, int value) {
+        writeVarInt(data,
+                (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads a zigzag encoded signed int
+     *
+     * @param data the buffer to read from
+     * @return the value
+     */
+    public static int readSignedVarInt(ByteBuf data) {
+        int value = readVarInt(data);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes a signed long using zigzag encoding
+     *
+     * @param data  the buffer to write to
+     * @param value the value to write
+     */
+    public static void writeSignedVarLong(ByteBuf data, long value) {
+        writeVarLong(data,
+                (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Reads a zigzag encoded signed long
+     *
+     * @param data the buffer to read from
+     * @return the value
+     */
+    public static long readSignedVarLong(ByteBuf data) {
+        long value = readVarLong(data);
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    /**
+     * Retrieves the number of bytes an unsigned variable length int will use
+     *
+     * @param value the value
+     * @return 1 to 5 bytes
+     */
+    public static int getVarIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+}
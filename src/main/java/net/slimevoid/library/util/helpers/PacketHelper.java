@@ -1,53 +1,312 @@
 package net.slimevoid.library.util.helpers;
 
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.collect.Sets;
 import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.client.FMLClientHandler;
 import net.minecraftforge.fml.common.Loader;
-import net.minecraftforge.fml.common.network.NetworkRegistry;
 import net.minecraftforge.fml.common.network.NetworkRegistry.TargetPoint;
-import net.minecraftforge.fml.common.network.simpleimpl.SimpleNetworkWrapper;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
+import net.slimevoid.library.network.ChunkWatcherRegistry;
+import net.slimevoid.library.core.SlimevoidCore;
+import net.slimevoid.library.core.lib.CoreLib;
+import net.slimevoid.library.network.PacketChannel;
+import net.slimevoid.library.network.PacketStatistics;
 import net.slimevoid.library.network.PacketUpdate;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Client and Server channels must be registered independently
  */
 public class PacketHelper {
 
-    private static Map<String, SimpleNetworkWrapper> channels = Maps.<String, SimpleNetworkWrapper>newConcurrentMap();
+    private static Map<String, PacketChannel> channels = Maps.<String, PacketChannel>newConcurrentMap();
 
     /**
      * Register Listener for mod Channel
      * <p/>
      * Should be called in the Main class of the mod
+     * <p/>
+     * Commands given here are sent as ids instead of strings, the server's
+     * list is synced to each client at login
      *
-     * @param modChannel
+     * @param commands the packet commands used on the channel
      */
-    public static void registerHandler() {
+    public static void registerHandler(String... commands) {
         String modChannel = Loader.instance().activeModContainer().getModId();
         if (channels.containsKey(modChannel)) {
             throw new RuntimeException("That channel is already registered");
         }
 
+        PacketChannel channel = new PacketChannel(modChannel);
+        for (String command : commands) {
+            channel.registerCommand(command);
+        }
         channels.put(modChannel,
-                NetworkRegistry.INSTANCE.newSimpleChannel(modChannel));
+                channel);
+    }
+
+    /**
+     * Retrieves a registered channel
+     *
+     * @param modChannel the channel name, may be null
+     * @return the channel or null if not registered
+     */
+    public static PacketChannel getChannel(String modChannel) {
+        return modChannel != null ? channels.get(modChannel) : null;
+    }
+
+    /**
+     * Enables or disables batching of outgoing packets for the active mod
+     * channel
+     * <p/>
+     * While batching, packets sent to players are queued per player and sent
+     * as one framed packet at the end of the server tick
+     *
+     * @param batching true to coalesce outgoing packets
+     */
+    public static void setBatching(boolean batching) {
+        String modChannel = Loader.instance().activeModContainer().getModId();
+        if (channels.containsKey(modChannel)) {
+            channels.get(modChannel).setBatching(batching);
+        }
+    }
+
+    /**
+     * Enables compression of large payloads for the active mod channel
+     * <p/>
+     * Must be set alike on client and server
+     *
+     * @param threshold  the smallest encoded payload in bytes to compress, 0
+     *                   disables compression
+     * @param dictionary text the payloads are likely to contain or null
+     */
+    public static void setCompression(int threshold, byte[] dictionary) {
+        String modChannel = Loader.instance().activeModContainer().getModId();
+        if (channels.containsKey(modChannel)) {
+            channels.get(modChannel).getCompressor().setCompression(threshold,
+                    dictionary);
+        }
+    }
+
+    /**
+     * Sends the command dictionary of every channel to a player
+     *
+     * @param entityplayer the player who logged in
+     */
+    public static void sendCommandTables(EntityPlayerMP entityplayer) {
+        for (PacketChannel channel : channels.values()) {
+            channel.sendCommandTable(entityplayer);
+        }
+    }
+
+    /**
+     * Starts executing deferred packets that are now within their sender's
+     * rate limit
+     * <p/>
+     * Called at the start of each server tick
+     */
+    public static void processDeferred() {
+        for (PacketChannel channel : channels.values()) {
+            channel.getRateLimiter().processDeferred();
+        }
+    }
+
+    /**
+     * Fails requests past their timeout and sends completed replies
+     * <p/>
+     * Called at the end of each server tick before flushing
+     */
+    public static void processRequests() {
+        for (PacketChannel channel : channels.values()) {
+            channel.getRequestTracker().expire();
+            channel.getRequestTracker().sendReplies();
+        }
+    }
+
+    /**
+     * Fails requests sent to the server that are past their timeout
+     * <p/>
+     * Called at the start of each client tick
+     */
+    public static void expireRequests() {
+        for (PacketChannel channel : channels.values()) {
+            channel.getRequestTracker().expire();
+        }
+    }
+
+    /**
+     * Discards fragmented transfers that have stopped receiving fragments
+     * <p/>
+     * Called once a second on each side
+     */
+    public static void expireTransfers() {
+        for (PacketChannel channel : channels.values()) {
+            channel.getReassembler().expire();
+        }
+    }
+
+    /**
+     * Forgets the delta synced blocks of a chunk a player no longer watches
+     *
+     * @param entityplayer the player
+     * @param chunk        the chunk
+     */
+    public static void unwatchChunk(EntityPlayerMP entityplayer, ChunkCoordIntPair chunk) {
+        for (PacketChannel channel : channels.values()) {
+            channel.getDeltaTracker().unwatchChunk(entityplayer,
+                    chunk.chunkXPos,
+                    chunk.chunkZPos);
+        }
+    }
+
+    /**
+     * Forgets delta synced entities sent to players that have left their world
+     * <p/>
+     * Called once a second on the server
+     */
+    public static void expireDeltas() {
+        for (PacketChannel channel : channels.values()) {
+            channel.getDeltaTracker().expireSent();
+        }
+    }
+
+    /**
+     * Forgets the delta synced blocks received for a chunk the client unloaded
+     */
+    public static void unloadChunk(int chunkX, int chunkZ) {
+        for (PacketChannel channel : channels.values()) {
+            channel.getDeltaTracker().unloadChunk(chunkX,
+                    chunkZ);
+        }
+    }
+
+    /**
+     * Forgets delta synced entities no longer in the client's world
+     * <p/>
+     * Called once a second on the client
+     */
+    @SideOnly(Side.CLIENT)
+    public static void expireReceivedDeltas() {
+        World world = FMLClientHandler.instance().getWorldClient();
+        for (PacketChannel channel : channels.values()) {
+            channel.getDeltaTracker().expireReceived(world);
+        }
+    }
+
+    /**
+     * Forgets every delta synced payload received, when the client world
+     * changes
+     */
+    public static void clearReceivedDeltas() {
+        for (PacketChannel channel : channels.values()) {
+            channel.getDeltaTracker().clearReceived();
+        }
+    }
+
+    /**
+     * Discards per player state held by the channels
+     *
+     * @param entityplayer the player who logged out
+     */
+    public static void removePlayer(EntityPlayerMP entityplayer) {
+        for (PacketChannel channel : channels.values()) {
+            channel.removePlayer(entityplayer);
+        }
+    }
+
+    /**
+     * Forgets the command dictionaries and partial transfers received from a
+     * server
+     */
+    public static void disconnect() {
+        for (PacketChannel channel : channels.values()) {
+            channel.disconnect();
+        }
+    }
+
+    /**
+     * Retrieves every registered channel
+     *
+     * @return the channels
+     */
+    public static Collection<PacketChannel> getChannels() {
+        return channels.values();
+    }
+
+    /**
+     * Appends the packet statistics of every channel to a CSV file
+     *
+     * @param file the file, the header is written when it is created
+     */
+    public static void dumpStatistics(File file) {
+        boolean header = !file.exists();
+        Writer writer = null;
+        try {
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            writer = new BufferedWriter(new FileWriter(file, true));
+            long time = System.currentTimeMillis();
+            if (header) {
+                writer.write("time," + PacketStatistics.CSV_HEADER + "\n");
+            }
+            for (PacketChannel channel : channels.values()) {
+                for (String row : channel.getStatistics().getRows()) {
+                    writer.write(time + "," + row + "\n");
+                }
+            }
+        } catch (IOException e) {
+            SlimevoidCore.console(CoreLib.MOD_ID,
+                    "Unable to write packet statistics to " + file + ": " + e.getMessage(),
+                    1);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends all queued packets on every channel
+     * <p/>
+     * Called at the end of each server tick
+     */
+    public static void flush() {
+        for (PacketChannel channel : channels.values()) {
+            channel.flush();
+        }
     }
 
     @SideOnly(Side.CLIENT)
     public static void registerClientExecutor(Class executor, Class packet, int packetIndex) {
         String modChannel = Loader.instance().activeModContainer().getModId();
         if (channels.containsKey(modChannel)) {
-            channels.get(modChannel).registerMessage(executor, packet, packetIndex, Side.CLIENT);
+            channels.get(modChannel).registerExecutor(executor, packet, packetIndex, Side.CLIENT);
         }
     }
 
     public static void registerServerExecutor(Class executor, Class packet, int packetIndex) {
         String modChannel = Loader.instance().activeModContainer().getModId();
         if (channels.containsKey(modChannel)) {
-            channels.get(modChannel).registerMessage(executor, packet, packetIndex, Side.SERVER);
+            channels.get(modChannel).registerExecutor(executor, packet, packetIndex, Side.SERVER);
         }
     }
 
@@ -56,10 +315,51 @@ public class PacketHelper {
                 entityplayer);
     }
 
+    /**
+     * Sends the same packet to several players, encoding it only once
+     *
+     * @param packet        the packet
+     * @param entityplayers the recipients
+     */
+    public static void sendToPlayers(PacketUpdate packet, Collection<EntityPlayerMP> entityplayers) {
+        channels.get(packet.getChannel()).sendToPlayers(packet,
+                entityplayers);
+    }
+
+    /**
+     * Sends a packet as a delta of the payload last sent to the player for
+     * the same target, with a full keyframe at intervals
+     * <p/>
+     * Suits packets sent repeatedly with few payload values changed
+     *
+     * @param packet       the packet
+     * @param entityplayer the recipient
+     */
+    public static void sendDeltaToPlayer(PacketUpdate packet, EntityPlayerMP entityplayer) {
+        channels.get(packet.getChannel()).sendDeltaToPlayers(packet,
+                Collections.singletonList(entityplayer));
+    }
+
+    /**
+     * Sends a packet to each player as a delta of the payload last sent to
+     * them for the same target
+     *
+     * @param packet        the packet
+     * @param entityplayers the recipients
+     */
+    public static void sendDeltaToPlayers(PacketUpdate packet, Collection<EntityPlayerMP> entityplayers) {
+        channels.get(packet.getChannel()).sendDeltaToPlayers(packet,
+                entityplayers);
+    }
+
     public static void sendToServer(PacketUpdate packet) {
         channels.get(packet.getChannel()).sendToServer(packet);
     }
 
+    public static <REPLY extends PacketUpdate> ListenableFuture<REPLY> sendRequest(PacketUpdate packet) {
+        return channels.get(packet.getChannel()).sendRequest(packet);
+    }
+
     public static void broadcastPacket(PacketUpdate packet) {
         channels.get(packet.getChannel()).sendToAll(packet);
     }
@@ -72,4 +372,40 @@ public class PacketHelper {
                         range,
                         dimension));
     }
+
+    /**
+     * Sends a packet to the players watching the chunk containing a position
+     * <p/>
+     * Only the players tracking the chunk are considered, so the cost scales
+     * with the number of watchers rather than the players in the dimension
+     *
+     * @param packet the packet
+     * @param world  the world of the position
+     * @param pos    the position within the chunk
+     */
+    public static void sendToChunkWatchers(PacketUpdate packet, World world, BlockPos pos) {
+        sendToPlayers(packet,
+                ChunkWatcherRegistry.getWatchers(world.provider.getDimensionId(),
+                        pos.getX() >> 4,
+                        pos.getZ() >> 4));
+    }
+
+    /**
+     * Sends a packet once to every player watching any of the given chunks
+     *
+     * @param packet the packet
+     * @param world  the world of the chunks
+     * @param chunks the chunk coordinates
+     */
+    public static void sendToChunkWatchers(PacketUpdate packet, World world, Collection<ChunkCoordIntPair> chunks) {
+        int dimension = world.provider.getDimensionId();
+        Set<EntityPlayerMP> entityplayers = Sets.newLinkedHashSet();
+        for (ChunkCoordIntPair chunk : chunks) {
+            entityplayers.addAll(ChunkWatcherRegistry.getWatchers(dimension,
+                    chunk.chunkXPos,
+                    chunk.chunkZPos));
+        }
+        sendToPlayers(packet,
+                entityplayers);
+    }
 }
@@ -0,0 +1,480 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.util.nbt;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagByte;
+import net.minecraft.nbt.NBTTagByteArray;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagDouble;
+import net.minecraft.nbt.NBTTagFloat;
+import net.minecraft.nbt.NBTTagInt;
+import net.minecraft.nbt.NBTTagIntArray;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagLong;
+import net.minecraft.nbt.NBTTagShort;
+import net.minecraft.nbt.NBTTagString;
+import net.minecraftforge.common.util.Constants.NBT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pulls NBT written by {@link NBTStreamWriter} from a ByteBuf one value at a
+ * time without building tag objects
+ * <p/>
+ * Entries of a compound are visited with {@link #next()}, which leaves the
+ * type and name of the entry to be read with the matching read method or
+ * skipped. Values inside a list are read in turn after {@link #beginList()}.
+ *
+ * <pre>
+ * reader.beginCompound();
+ * while (reader.next()) {
+ *     if ("Power".equals(reader.getName())) this.power = reader.readInt();
+ *     else reader.skip();
+ * }
+ * reader.endCompound();
+ * </pre>
+ */
+public class NBTStreamReader {
+
+    /**
+     * Nesting accepted, as for vanilla NBT
+     */
+    private static final int MAX_DEPTH = 512;
+
+    protected final ByteBuf data;
+
+    private final List<Context> stack = new ArrayList<Context>();
+
+    /**
+     * Type of the entry returned by {@link #next()}, -1 once read
+     */
+    private int type = -1;
+
+    private String name;
+
+    public NBTStreamReader(ByteBuf data) {
+        this.data = data;
+    }
+
+    public ByteBuf getBuffer() {
+        return this.data;
+    }
+
+    /**
+     * Starts reading a compound, the root or the current value
+     *
+     * @return the name of the compound
+     */
+    public String beginCompound() {
+        String name;
+        if (this.stack.isEmpty()) {
+            name = this.readRootHeader();
+        } else {
+            name = this.name;
+            this.expect(NBT.TAG_COMPOUND);
+        }
+        this.push(new Context(false, NBT.TAG_END, 0));
+        return name;
+    }
+
+    /**
+     * Moves to the next entry of the current compound
+     *
+     * @return false once the end of the compound is reached
+     */
+    public boolean next() {
+        Context context = this.peek();
+        if (context.list) {
+            throw new IllegalStateException("Values of a list have no entries");
+        }
+        if (this.type >= 0) {
+            // The previous entry was neither read nor skipped
+            this.skip();
+        }
+        if (context.ended) return false;
+        int type = this.data.readUnsignedByte();
+        if (type == NBT.TAG_END) {
+            context.ended = true;
+            this.name = null;
+            return false;
+        }
+        this.type = type;
+        this.name = this.readName();
+        return true;
+    }
+
+    /**
+     * Ends the current compound, skipping any entries not visited
+     */
+    public void endCompound() {
+        while (this.next()) {
+            this.skip();
+        }
+        this.pop();
+    }
+
+    public int getType() {
+        return this.type;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Starts reading the current value as a list
+     *
+     * @return the number of values in the list
+     */
+    public int beginList() {
+        this.expect(NBT.TAG_LIST);
+        int elementType = this.data.readUnsignedByte();
+        int count = this.readLength(1);
+        this.push(new Context(true, elementType, count));
+        return count;
+    }
+
+    /**
+     * Retrieves the type of every value of the current list
+     */
+    public int getListType() {
+        Context context = this.peek();
+        if (!context.list) {
+            throw new IllegalStateException("Not reading a list");
+        }
+        return context.elementType;
+    }
+
+    /**
+     * Ends the current list, skipping any values not read
+     */
+    public void endList() {
+        Context context = this.peek();
+        if (!context.list) {
+            throw new IllegalStateException("Not reading a list");
+        }
+        while (context.remaining > 0) {
+            this.skip();
+        }
+        this.pop();
+    }
+
+    public byte readByte() {
+        this.expect(NBT.TAG_BYTE);
+        return this.data.readByte();
+    }
+
+    public boolean readBoolean() {
+        return this.readByte() != 0;
+    }
+
+    public short readShort() {
+        this.expect(NBT.TAG_SHORT);
+        return this.readShortValue();
+    }
+
+    public int readInt() {
+        this.expect(NBT.TAG_INT);
+        return this.readIntValue();
+    }
+
+    public long readLong() {
+        this.expect(NBT.TAG_LONG);
+        return this.readLongValue();
+    }
+
+    public float readFloat() {
+        this.expect(NBT.TAG_FLOAT);
+        return this.data.readFloat();
+    }
+
+    public double readDouble() {
+        this.expect(NBT.TAG_DOUBLE);
+        return this.data.readDouble();
+    }
+
+    public byte[] readByteArray() {
+        this.expect(NBT.TAG_BYTE_ARRAY);
+        byte[] value = new byte[this.readLength(1)];
+        this.data.readBytes(value);
+        return value;
+    }
+
+    public String readString() {
+        this.expect(NBT.TAG_STRING);
+        return this.readStringValue();
+    }
+
+    public int[] readIntArray() {
+        this.expect(NBT.TAG_INT_ARRAY);
+        int[] value = new int[this.readLength(1)];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = this.readIntValue();
+        }
+        return value;
+    }
+
+    /**
+     * Skips the current value
+     */
+    public void skip() {
+        switch (this.getValueType()) {
+            case NBT.TAG_BYTE:
+                this.readByte();
+                break;
+            case NBT.TAG_SHORT:
+                this.readShort();
+                break;
+            case NBT.TAG_INT:
+                this.readInt();
+                break;
+            case NBT.TAG_LONG:
+                this.readLong();
+                break;
+            case NBT.TAG_FLOAT:
+                this.readFloat();
+                break;
+            case NBT.TAG_DOUBLE:
+                this.readDouble();
+                break;
+            case NBT.TAG_BYTE_ARRAY:
+                this.readByteArray();
+                break;
+            case NBT.TAG_STRING:
+                this.readString();
+                break;
+            case NBT.TAG_LIST:
+                this.beginList();
+                this.endList();
+                break;
+            case NBT.TAG_COMPOUND:
+                this.beginCompound();
+                this.endCompound();
+                break;
+            case NBT.TAG_INT_ARRAY:
+                this.readIntArray();
+                break;
+            default:
+                throw new IllegalStateException("Unknown NBT tag type " + this.getValueType());
+        }
+    }
+
+    /**
+     * Reads the current value as a tag, for data only usable as tags
+     *
+     * @return a new tag
+     */
+    public NBTBase readTag() {
+        switch (this.getValueType()) {
+            case NBT.TAG_BYTE:
+                return new NBTTagByte(this.readByte());
+            case NBT.TAG_SHORT:
+                return new NBTTagShort(this.readShort());
+            case NBT.TAG_INT:
+                return new NBTTagInt(this.readInt());
+            case NBT.TAG_LONG:
+                return new NBTTagLong(this.readLong());
+            case NBT.TAG_FLOAT:
+                return new NBTTagFloat(this.readFloat());
+            case NBT.TAG_DOUBLE:
+                return new NBTTagDouble(this.readDouble());
+            case NBT.TAG_BYTE_ARRAY:
+                return new NBTTagByteArray(this.readByteArray());
+            case NBT.TAG_STRING:
+                return new NBTTagString(this.readString());
+            case NBT.TAG_LIST:
+                NBTTagList list = new NBTTagList();
+                int count = this.beginList();
+                for (int i = 0; i < count; i++) {
+                    list.appendTag(this.readTag());
+                }
+                this.endList();
+                return list;
+            case NBT.TAG_COMPOUND:
+                this.beginCompound();
+                NBTTagCompound compound = this.readEntries();
+                this.pop();
+                return compound;
+            case NBT.TAG_INT_ARRAY:
+                return new NBTTagIntArray(this.readIntArray());
+            default:
+                throw new IllegalStateException("Unknown NBT tag type " + this.getValueType());
+        }
+    }
+
+    /**
+     * Reads a whole compound, the root or the current value
+     *
+     * @return a new compound
+     */
+    public NBTTagCompound readCompound() {
+        this.beginCompound();
+        NBTTagCompound compound = this.readEntries();
+        this.pop();
+        return compound;
+    }
+
+    /**
+     * Reads the remaining entries of the current compound up to its end
+     */
+    private NBTTagCompound readEntries() {
+        NBTTagCompound compound = new NBTTagCompound();
+        while (this.next()) {
+            String key = this.name;
+            compound.setTag(key,
+                    this.readTag());
+        }
+        return compound;
+    }
+
+    /**
+     * The type of the value to read next, from the entry or the list
+     */
+    private int getValueType() {
+        Context context = this.peek();
+        if (context.list) return context.elementType;
+        if (this.type < 0) {
+            throw new IllegalStateException("No entry to read, call next() first");
+        }
+        return this.type;
+    }
+
+    private void expect(int type) {
+        Context context = this.peek();
+        if (context.list) {
+            if (context.elementType != type) {
+                throw new IllegalStateException("Reading tag type " + type + " from a list of type " + context.elementType);
+            }
+            if (context.remaining-- <= 0) {
+                throw new IllegalStateException("Reading past the end of a list");
+            }
+        } else {
+            if (this.type != type) {
+                throw new IllegalStateException("Reading tag type " + type + " from entry " + this.name + " of type " + this.type);
+            }
+            this.type = -1;
+        }
+    }
+
+    private Context peek() {
+        if (this.stack.isEmpty()) {
+            throw new IllegalStateException("No compound or list being read");
+        }
+        return this.stack.get(this.stack.size() - 1);
+    }
+
+    private void push(Context context) {
+        if (this.stack.size() >= MAX_DEPTH) {
+            throw new IllegalStateException("NBT nested deeper than " + MAX_DEPTH);
+        }
+        this.stack.add(context);
+        this.type = -1;
+    }
+
+    private void pop() {
+        this.peek();
+        this.stack.remove(this.stack.size() - 1);
+        this.type = -1;
+    }
+
+    /**
+     * Reads a length, rejecting any that could not fit in the rest of the
+     * buffer before allocating for it
+     */
+    protected int readLength(int minBytes) {
+        int length = this.readLengthValue();
+        if (length < 0 || (long) length * minBytes > this.data.readableBytes()) {
+            throw new IllegalStateException("NBT length " + length + " exceeds the " + this.data.readableBytes() + " bytes left");
+        }
+        return length;
+    }
+
+    protected String readRootHeader() {
+        int type = this.data.readUnsignedByte();
+        if (type != NBT.TAG_COMPOUND) {
+            throw new IllegalStateException("The root tag must be a compound, not " + type);
+        }
+        return this.readName();
+    }
+
+    protected String readName() {
+        return readUTF(this.data);
+    }
+
+    protected String readStringValue() {
+        return readUTF(this.data);
+    }
+
+    protected short readShortValue() {
+        return this.data.readShort();
+    }
+
+    protected int readIntValue() {
+        return this.data.readInt();
+    }
+
+    protected long readLongValue() {
+        return this.data.readLong();
+    }
+
+    protected int readLengthValue() {
+        return this.data.readInt();
+    }
+
+    /**
+     * Reads a String in the modified UTF-8 of {@link java.io.DataInput#readUTF}
+     */
+    public static String readUTF(ByteBuf data) {
+        int bytes = data.readUnsignedShort();
+        int end = data.readerIndex() + bytes;
+        if (bytes > data.readableBytes()) {
+            throw new IllegalStateException("String of " + bytes + " bytes exceeds the " + data.readableBytes() + " bytes left");
+        }
+        char[] chars = new char[bytes];
+        int length = 0;
+        while (data.readerIndex() < end) {
+            int c = data.readUnsignedByte();
+            if (c < 0x80) {
+                chars[length++] = (char) c;
+            } else if ((c & 0xE0) == 0xC0) {
+                chars[length++] = (char) (((c & 0x1F) << 6) | (data.readUnsignedByte() & 0x3F));
+            } else if ((c & 0xF0) == 0xE0) {
+                chars[length++] = (char) (((c & 0x0F) << 12) | ((data.readUnsignedByte() & 0x3F) << 6) | (data.readUnsignedByte() & 0x3F));
+            } else {
+                throw new IllegalStateException("Malformed modified UTF-8 byte " + c);
+            }
+        }
+        if (data.readerIndex() != end) {
+            throw new IllegalStateException("Malformed modified UTF-8 string");
+        }
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * An open compound, or a list and the values it still holds
+     */
+    private static class Context {
+        private final boolean list;
+        private final int elementType;
+        private int remaining;
+        private boolean ended;
+
+        Context(boolean list, int elementType, int remaining) {
+            this.list = list;
+            this.elementType = elementType;
+            this.remaining = remaining;
+        }
+    }
+}
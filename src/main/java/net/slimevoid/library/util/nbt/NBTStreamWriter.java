@@ -0,0 +1,357 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.util.nbt;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagByte;
+import net.minecraft.nbt.NBTTagByteArray;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagDouble;
+import net.minecraft.nbt.NBTTagFloat;
+import net.minecraft.nbt.NBTTagInt;
+import net.minecraft.nbt.NBTTagIntArray;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagLong;
+import net.minecraft.nbt.NBTTagShort;
+import net.minecraft.nbt.NBTTagString;
+import net.minecraftforge.common.util.Constants.NBT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes NBT straight into a ByteBuf without building tag objects
+ * <p/>
+ * The output is the uncompressed NBT written by
+ * {@link net.slimevoid.library.util.helpers.NBTHelper#writeNBTTagCompound},
+ * so it can be read back with
+ * {@link net.slimevoid.library.util.helpers.NBTHelper#readNBTTagCompound} or
+ * {@link NBTStreamReader}. Values inside a list take no name, the name given
+ * is ignored. Subclasses may change how names, strings and numbers are
+ * encoded.
+ *
+ * <pre>
+ * writer.beginCompound("");
+ * writer.writeInt("Power", this.power);
+ * writer.beginList("Items", Constants.NBT.TAG_COMPOUND, 1);
+ * writer.beginCompound(null);
+ * writer.writeByte("Slot", (byte) 0);
+ * writer.endCompound();
+ * writer.endList();
+ * writer.endCompound();
+ * </pre>
+ */
+public class NBTStreamWriter {
+
+    protected final ByteBuf data;
+
+    private final List<Context> stack = new ArrayList<Context>();
+
+    public NBTStreamWriter(ByteBuf data) {
+        this.data = data;
+    }
+
+    public ByteBuf getBuffer() {
+        return this.data;
+    }
+
+    /**
+     * Starts a compound, the outermost tag must be one
+     *
+     * @param name the name of the compound, "" for the root
+     */
+    public NBTStreamWriter beginCompound(String name) {
+        if (this.stack.isEmpty()) {
+            this.writeRootHeader(name != null ? name : "");
+        } else {
+            this.header(NBT.TAG_COMPOUND,
+                    name);
+        }
+        this.stack.add(new Context(false, NBT.TAG_END, 0));
+        return this;
+    }
+
+    public NBTStreamWriter endCompound() {
+        Context context = this.pop();
+        if (context.list) {
+            throw new IllegalStateException("Ending a compound inside an open list");
+        }
+        this.data.writeByte(NBT.TAG_END);
+        return this;
+    }
+
+    /**
+     * Starts a list, followed by exactly the given number of values
+     *
+     * @param name        the name of the list
+     * @param elementType the type of every value
+     * @param count       the number of values
+     */
+    public NBTStreamWriter beginList(String name, int elementType, int count) {
+        this.header(NBT.TAG_LIST,
+                name);
+        this.data.writeByte(elementType);
+        this.writeLength(count);
+        this.stack.add(new Context(true, elementType, count));
+        return this;
+    }
+
+    public NBTStreamWriter endList() {
+        Context context = this.pop();
+        if (!context.list) {
+            throw new IllegalStateException("Ending a list inside an open compound");
+        }
+        if (context.remaining != 0) {
+            throw new IllegalStateException("List ended with " + context.remaining + " values missing");
+        }
+        return this;
+    }
+
+    public NBTStreamWriter writeByte(String name, byte value) {
+        this.header(NBT.TAG_BYTE,
+                name);
+        this.data.writeByte(value);
+        return this;
+    }
+
+    public NBTStreamWriter writeBoolean(String name, boolean value) {
+        return this.writeByte(name,
+                (byte) (value ? 1 : 0));
+    }
+
+    public NBTStreamWriter writeShort(String name, short value) {
+        this.header(NBT.TAG_SHORT,
+                name);
+        this.writeShortValue(value);
+        return this;
+    }
+
+    public NBTStreamWriter writeInt(String name, int value) {
+        this.header(NBT.TAG_INT,
+                name);
+        this.writeIntValue(value);
+        return this;
+    }
+
+    public NBTStreamWriter writeLong(String name, long value) {
+        this.header(NBT.TAG_LONG,
+                name);
+        this.writeLongValue(value);
+        return this;
+    }
+
+    public NBTStreamWriter writeFloat(String name, float value) {
+        this.header(NBT.TAG_FLOAT,
+                name);
+        this.data.writeFloat(value);
+        return this;
+    }
+
+    public NBTStreamWriter writeDouble(String name, double value) {
+        this.header(NBT.TAG_DOUBLE,
+                name);
+        this.data.writeDouble(value);
+        return this;
+    }
+
+    public NBTStreamWriter writeByteArray(String name, byte[] value) {
+        this.header(NBT.TAG_BYTE_ARRAY,
+                name);
+        this.writeLength(value.length);
+        this.data.writeBytes(value);
+        return this;
+    }
+
+    public NBTStreamWriter writeString(String name, String value) {
+        this.header(NBT.TAG_STRING,
+                name);
+        this.writeStringValue(value);
+        return this;
+    }
+
+    public NBTStreamWriter writeIntArray(String name, int[] value) {
+        this.header(NBT.TAG_INT_ARRAY,
+                name);
+        this.writeLength(value.length);
+        for (int i : value) {
+            this.writeIntValue(i);
+        }
+        return this;
+    }
+
+    /**
+     * Writes an existing tag, for data such as item stacks only available as
+     * tags
+     *
+     * @param name the name of the tag
+     * @param tag  the tag
+     */
+    public NBTStreamWriter writeTag(String name, NBTBase tag) {
+        switch (tag.getId()) {
+            case NBT.TAG_BYTE:
+                return this.writeByte(name,
+                        ((NBTTagByte) tag).getByte());
+            case NBT.TAG_SHORT:
+                return this.writeShort(name,
+                        ((NBTTagShort) tag).getShort());
+            case NBT.TAG_INT:
+                return this.writeInt(name,
+                        ((NBTTagInt) tag).getInt());
+            case NBT.TAG_LONG:
+                return this.writeLong(name,
+                        ((NBTTagLong) tag).getLong());
+            case NBT.TAG_FLOAT:
+                return this.writeFloat(name,
+                        ((NBTTagFloat) tag).getFloat());
+            case NBT.TAG_DOUBLE:
+                return this.writeDouble(name,
+                        ((NBTTagDouble) tag).getDouble());
+            case NBT.TAG_BYTE_ARRAY:
+                return this.writeByteArray(name,
+                        ((NBTTagByteArray) tag).getByteArray());
+            case NBT.TAG_STRING:
+                return this.writeString(name,
+                        ((NBTTagString) tag).getString());
+            case NBT.TAG_LIST:
+                NBTTagList list = (NBTTagList) tag;
+                this.beginList(name,
+                        list.getTagType(),
+                        list.tagCount());
+                for (int i = 0; i < list.tagCount(); i++) {
+                    this.writeTag(null,
+                            list.get(i));
+                }
+                return this.endList();
+            case NBT.TAG_COMPOUND:
+                this.beginCompound(name);
+                this.writeEntries((NBTTagCompound) tag);
+                return this.endCompound();
+            case NBT.TAG_INT_ARRAY:
+                return this.writeIntArray(name,
+                        ((NBTTagIntArray) tag).getIntArray());
+            default:
+                throw new IllegalArgumentException("Unknown NBT tag type " + tag.getId());
+        }
+    }
+
+    /**
+     * Writes every entry of a compound into the compound being written
+     *
+     * @param compound the entries
+     */
+    @SuppressWarnings("unchecked")
+    public NBTStreamWriter writeEntries(NBTTagCompound compound) {
+        for (String key : (Iterable<String>) compound.getKeySet()) {
+            this.writeTag(key,
+                    compound.getTag(key));
+        }
+        return this;
+    }
+
+    private void header(int type, String name) {
+        if (this.stack.isEmpty()) {
+            throw new IllegalStateException("The root tag must be a compound");
+        }
+        Context context = this.stack.get(this.stack.size() - 1);
+        if (!context.list) {
+            this.data.writeByte(type);
+            this.writeName(name);
+        } else if (context.elementType != type) {
+            throw new IllegalStateException("Writing tag type " + type + " to a list of type " + context.elementType);
+        } else if (context.remaining-- <= 0) {
+            throw new IllegalStateException("Writing more values than the list was started with");
+        }
+    }
+
+    private Context pop() {
+        if (this.stack.isEmpty()) {
+            throw new IllegalStateException("No compound or list to end");
+        }
+        return this.stack.remove(this.stack.size() - 1);
+    }
+
+    protected void writeRootHeader(String name) {
+        this.data.writeByte(NBT.TAG_COMPOUND);
+        this.writeName(name);
+    }
+
+    protected void writeName(String name) {
+        writeUTF(this.data,
+                name);
+    }
+
+    protected void writeStringValue(String value) {
+        writeUTF(this.data,
+                value);
+    }
+
+    protected void writeShortValue(short value) {
+        this.data.writeShort(value);
+    }
+
+    protected void writeIntValue(int value) {
+        this.data.writeInt(value);
+    }
+
+    protected void writeLongValue(long value) {
+        this.data.writeLong(value);
+    }
+
+    protected void writeLength(int length) {
+        this.data.writeInt(length);
+    }
+
+    /**
+     * Writes a String in the modified UTF-8 of {@link java.io.DataOutput#writeUTF}
+     */
+    public static void writeUTF(ByteBuf data, String value) {
+        int length = value.length();
+        int start = data.writerIndex();
+        data.writeShort(0);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                data.writeByte(c);
+            } else if (c > 0x07FF) {
+                data.writeByte(0xE0 | ((c >> 12) & 0x0F));
+                data.writeByte(0x80 | ((c >> 6) & 0x3F));
+                data.writeByte(0x80 | (c & 0x3F));
+            } else {
+                data.writeByte(0xC0 | ((c >> 6) & 0x1F));
+                data.writeByte(0x80 | (c & 0x3F));
+            }
+        }
+        int bytes = data.writerIndex() - start - 2;
+        if (bytes > 65535) {
+            data.writerIndex(start);
+            throw new IllegalArgumentException("String too long for NBT (" + bytes + " bytes)");
+        }
+        data.setShort(start,
+                bytes);
+    }
+
+    /**
+     * An open compound, or a list and the values it still expects
+     */
+    private static class Context {
+        private final boolean list;
+        private final int elementType;
+        private int remaining;
+
+        Context(boolean list, int elementType, int remaining) {
+            this.list = list;
+            this.elementType = elementType;
+            this.remaining = remaining;
+        }
+    }
+}
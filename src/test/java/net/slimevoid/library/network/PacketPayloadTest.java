@@ -0,0 +1,111 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PacketPayloadTest {
+
+    static PacketPayload sample() {
+        return PacketPayload.builder()
+                .putInt(-1)
+                .putInt(Integer.MAX_VALUE)
+                .putFloat(0.25F)
+                .putString("first")
+                .putString("")
+                .putBool(true)
+                .putBool(false)
+                .putDouble(Math.PI)
+                .build();
+    }
+
+    static void assertPayloadEquals(PacketPayload expected, PacketPayload actual) {
+        Assert.assertEquals(expected.getIntSize(),
+                actual.getIntSize());
+        Assert.assertEquals(expected.getFloatSize(),
+                actual.getFloatSize());
+        Assert.assertEquals(expected.getStringSize(),
+                actual.getStringSize());
+        Assert.assertEquals(expected.getBoolSize(),
+                actual.getBoolSize());
+        Assert.assertEquals(expected.getDoubleSize(),
+                actual.getDoubleSize());
+        for (int i = 0; i < expected.getIntSize(); i++)
+            Assert.assertEquals(expected.getIntPayload(i),
+                    actual.getIntPayload(i));
+        for (int i = 0; i < expected.getFloatSize(); i++)
+            Assert.assertEquals(Float.floatToIntBits(expected.getFloatPayload(i)),
+                    Float.floatToIntBits(actual.getFloatPayload(i)));
+        for (int i = 0; i < expected.getStringSize(); i++)
+            Assert.assertEquals(expected.getStringPayload(i),
+                    actual.getStringPayload(i));
+        for (int i = 0; i < expected.getBoolSize(); i++)
+            Assert.assertEquals(expected.getBoolPayload(i),
+                    actual.getBoolPayload(i));
+        for (int i = 0; i < expected.getDoubleSize(); i++)
+            Assert.assertEquals(Double.doubleToLongBits(expected.getDoublePayload(i)),
+                    Double.doubleToLongBits(actual.getDoublePayload(i)));
+    }
+
+    @Test
+    public void dataRoundTrips() {
+        PacketPayload payload = sample();
+        ByteBuf data = Unpooled.buffer();
+        payload.writeData(data);
+        PacketPayload read = new PacketPayload(0, 0, 0, 0, 0);
+        read.readData(data);
+        assertPayloadEquals(payload,
+                read);
+        Assert.assertFalse(data.isReadable());
+    }
+
+    @Test
+    public void deltaRoundTrips() {
+        PacketPayload base = sample();
+        PacketPayload next = base.copy();
+        next.setIntPayload(1,
+                Integer.MIN_VALUE);
+        next.setStringPayload(1,
+                "second");
+        next.setBoolPayload(0,
+                false);
+        next.setDoublePayload(0,
+                -0.0D);
+        ByteBuf data = Unpooled.buffer();
+        next.writeDelta(base,
+                data);
+        PacketPayload read = PacketPayload.readDelta(base,
+                data);
+        assertPayloadEquals(next,
+                read);
+        assertPayloadEquals(sample(),
+                base);
+        Assert.assertFalse(data.isReadable());
+    }
+
+    @Test
+    public void unchangedDeltaIsOnlyTheBitmap() {
+        PacketPayload base = sample();
+        ByteBuf data = Unpooled.buffer();
+        base.copy().writeDelta(base,
+                data);
+        // Eight values fit a single bitmap byte
+        Assert.assertEquals(1,
+                data.readableBytes());
+        assertPayloadEquals(base,
+                PacketPayload.readDelta(base,
+                        data));
+    }
+}
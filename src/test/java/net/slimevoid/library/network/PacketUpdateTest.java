@@ -0,0 +1,180 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PacketUpdateTest {
+
+    public static class TestPacket extends PacketUpdate {
+        public TestPacket() {
+            super(7);
+        }
+    }
+
+    /**
+     * Sends hit vectors as 16 bit fixed point
+     */
+    public static class FineHitPacket extends TestPacket {
+        @Override
+        protected int getHitVectorBits() {
+            return 16;
+        }
+    }
+
+    private static <T extends PacketUpdate> T roundTrip(T packet, T read) {
+        ByteBuf data = Unpooled.buffer();
+        packet.writeData(data);
+        read.readData(data);
+        Assert.assertFalse(data.isReadable());
+        return read;
+    }
+
+    private static void assertHeaderEquals(PacketUpdate expected, PacketUpdate actual) {
+        Assert.assertEquals(expected.getPacketId(),
+                actual.getPacketId());
+        Assert.assertEquals(expected.getCommand(),
+                actual.getCommand());
+        Assert.assertEquals(expected.xPosition,
+                actual.xPosition);
+        Assert.assertEquals(expected.yPosition,
+                actual.yPosition);
+        Assert.assertEquals(expected.zPosition,
+                actual.zPosition);
+        Assert.assertEquals(expected.side,
+                actual.side);
+        Assert.assertEquals(expected.hitX,
+                actual.hitX,
+                0.0F);
+        Assert.assertEquals(expected.hitY,
+                actual.hitY,
+                0.0F);
+        Assert.assertEquals(expected.hitZ,
+                actual.hitZ,
+                0.0F);
+        Assert.assertEquals(expected.getCorrelationId(),
+                actual.getCorrelationId());
+        Assert.assertEquals(expected.isReply(),
+                actual.isReply());
+    }
+
+    @Test
+    public void emptyPacketRoundTrips() {
+        TestPacket packet = new TestPacket();
+        TestPacket read = roundTrip(packet,
+                new TestPacket());
+        assertHeaderEquals(packet,
+                read);
+        Assert.assertTrue(read.payload.isEmpty());
+    }
+
+    @Test
+    public void headerAndPayloadRoundTrip() {
+        TestPacket packet = new TestPacket();
+        packet.setCommand("update");
+        packet.setPosition(-30000000,
+                255,
+                29999999,
+                -3);
+        packet.setHitVectors(0.3F,
+                -1.5F,
+                Float.MIN_VALUE);
+        packet.setCorrelation(42,
+                false);
+        packet.payload = PacketPayloadTest.sample();
+        TestPacket read = roundTrip(packet,
+                new TestPacket());
+        assertHeaderEquals(packet,
+                read);
+        PacketPayloadTest.assertPayloadEquals(packet.payload,
+                read.payload);
+    }
+
+    @Test
+    public void positionsOutsideBlockPosPackingRoundTrip() {
+        int[][] positions = {
+                { Integer.MAX_VALUE, Integer.MIN_VALUE, 0 },
+                { 1 << 26, 4096, -(1 << 26) },
+                { 0, -1, 0 }
+        };
+        for (int[] position : positions) {
+            TestPacket packet = new TestPacket();
+            packet.setPosition(position[0],
+                    position[1],
+                    position[2],
+                    0);
+            assertHeaderEquals(packet,
+                    roundTrip(packet,
+                            new TestPacket()));
+        }
+    }
+
+    @Test
+    public void deltaKeysKeepDistinctPositionsApart() {
+        TestPacket low = new TestPacket();
+        low.setPosition(0,
+                0,
+                0,
+                0);
+        TestPacket high = new TestPacket();
+        // Would share a BlockPos.toLong key with the origin
+        high.setPosition(0,
+                4096,
+                0,
+                0);
+        Assert.assertFalse(low.getDeltaKey().equals(high.getDeltaKey()));
+        TestPacket same = new TestPacket();
+        same.setPosition(0,
+                0,
+                0,
+                5);
+        Assert.assertEquals(low.getDeltaKey(),
+                same.getDeltaKey());
+    }
+
+    @Test
+    public void quantizedSixteenthsRoundTripExactly() {
+        for (int side = 0; side < 6; side++) {
+            for (int sixteenth = 0; sixteenth <= 16; sixteenth++) {
+                FineHitPacket packet = new FineHitPacket();
+                packet.setPosition(1,
+                        2,
+                        3,
+                        side);
+                packet.setHitVectors(sixteenth / 16.0F,
+                        1.0F - sixteenth / 16.0F,
+                        0.5F);
+                assertHeaderEquals(packet,
+                        roundTrip(packet,
+                                new FineHitPacket()));
+            }
+        }
+    }
+
+    @Test
+    public void hitsOutsideTheBlockAreSentExactly() {
+        FineHitPacket packet = new FineHitPacket();
+        packet.setPosition(1,
+                2,
+                3,
+                2);
+        packet.setHitVectors(1.25F,
+                0.1F,
+                -0.1F);
+        assertHeaderEquals(packet,
+                roundTrip(packet,
+                        new FineHitPacket()));
+    }
+}
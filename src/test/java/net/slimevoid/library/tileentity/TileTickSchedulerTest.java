@@ -0,0 +1,91 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.tileentity;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TileTickSchedulerTest {
+
+    /**
+     * Delays on either side of each level boundary and the longest delay
+     */
+    private static final long[] DELAYS = {
+            1L, 2L, 63L, 64L, 65L,
+            4095L, 4096L, 4097L,
+            (1L << 18) - 1L, 1L << 18, (1L << 18) + 1L,
+            TileTickScheduler.MAX_DELAY
+    };
+
+    /**
+     * Schedules every delay after turning the wheel to the given tick and
+     * checks that each entry comes out exactly once on its due tick
+     */
+    private static void assertFiresOnTime(long start) {
+        TileTickScheduler scheduler = new TileTickScheduler(null);
+        for (long tick = 0; tick < start; tick++) {
+            Assert.assertTrue(scheduler.turn().isEmpty());
+        }
+        List<Long> expected = new ArrayList<Long>();
+        for (long delay : DELAYS) {
+            expected.add(scheduler.schedule(null,
+                    delay));
+            Assert.assertEquals(start + delay,
+                    (long) expected.get(expected.size() - 1));
+        }
+        List<Long> fired = new ArrayList<Long>();
+        for (long tick = start + 1; tick <= start + TileTickScheduler.MAX_DELAY; tick++) {
+            for (TileTickScheduler.Entry entry : scheduler.turn()) {
+                Assert.assertEquals(tick,
+                        entry.due);
+                fired.add(entry.due);
+            }
+        }
+        Assert.assertEquals(expected,
+                fired);
+        Assert.assertEquals(0,
+                scheduler.size());
+    }
+
+    @Test
+    public void firesOnTimeFromTheStart() {
+        assertFiresOnTime(0L);
+    }
+
+    @Test
+    public void firesOnTimeWhenScheduledMidSlot() {
+        assertFiresOnTime(37L);
+    }
+
+    @Test
+    public void firesOnTimeWhenScheduledBeforeCascades() {
+        assertFiresOnTime(63L);
+        assertFiresOnTime(4095L);
+        assertFiresOnTime((1L << 18) - 1L);
+    }
+
+    @Test
+    public void clampsDelays() {
+        TileTickScheduler scheduler = new TileTickScheduler(null);
+        Assert.assertEquals(1L,
+                scheduler.schedule(null,
+                        0L));
+        Assert.assertEquals(TileTickScheduler.MAX_DELAY,
+                scheduler.schedule(null,
+                        TileTickScheduler.MAX_DELAY + 100L));
+        Assert.assertEquals(2,
+                scheduler.size());
+    }
+}
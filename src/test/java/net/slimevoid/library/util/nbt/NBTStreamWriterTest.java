@@ -0,0 +1,134 @@
+/*
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU
+ * Lesser General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>
+ */
+package net.slimevoid.library.util.nbt;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagString;
+import net.minecraftforge.common.util.Constants.NBT;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class NBTStreamWriterTest {
+
+    private static byte[] vanilla(NBTTagCompound compound) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        CompressedStreamTools.write(compound,
+                out);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] toArray(ByteBuf data) {
+        byte[] bytes = new byte[data.readableBytes()];
+        data.readBytes(bytes);
+        return bytes;
+    }
+
+    private static NBTTagCompound sample() {
+        NBTTagCompound compound = new NBTTagCompound();
+        compound.setByte("Byte",
+                (byte) -1);
+        compound.setShort("Short",
+                (short) 300);
+        compound.setInteger("Int",
+                Integer.MIN_VALUE);
+        compound.setLong("Long",
+                Long.MAX_VALUE);
+        compound.setFloat("Float",
+                0.5F);
+        compound.setDouble("Double",
+                -2.25D);
+        compound.setString("String",
+                "caf\u00e9 \u0000 \ud83d\ude00");
+        compound.setByteArray("Bytes",
+                new byte[] { 1, 2, 3 });
+        compound.setIntArray("Ints",
+                new int[] { -1, 0, 1 });
+        NBTTagList strings = new NBTTagList();
+        strings.appendTag(new NBTTagString("a"));
+        strings.appendTag(new NBTTagString("b"));
+        compound.setTag("Strings",
+                strings);
+        NBTTagList items = new NBTTagList();
+        NBTTagCompound item = new NBTTagCompound();
+        item.setByte("Slot",
+                (byte) 0);
+        items.appendTag(item);
+        compound.setTag("Items",
+                items);
+        NBTTagCompound nested = new NBTTagCompound();
+        nested.setBoolean("Flag",
+                true);
+        compound.setTag("Nested",
+                nested);
+        compound.setTag("Empty",
+                new NBTTagList());
+        return compound;
+    }
+
+    @Test
+    public void entriesMatchCompressedStreamTools() throws IOException {
+        NBTTagCompound compound = sample();
+        ByteBuf data = Unpooled.buffer();
+        new NBTStreamWriter(data).beginCompound("")
+                .writeEntries(compound)
+                .endCompound();
+        Assert.assertArrayEquals(vanilla(compound),
+                toArray(data));
+    }
+
+    @Test
+    public void streamedValuesMatchCompressedStreamTools() throws IOException {
+        NBTTagCompound compound = new NBTTagCompound();
+        NBTTagList items = new NBTTagList();
+        NBTTagCompound item = new NBTTagCompound();
+        item.setByte("Slot",
+                (byte) 3);
+        items.appendTag(item);
+        compound.setTag("Items",
+                items);
+        ByteBuf data = Unpooled.buffer();
+        new NBTStreamWriter(data).beginCompound("")
+                .beginList("Items",
+                        NBT.TAG_COMPOUND,
+                        1)
+                .beginCompound(null)
+                .writeByte("Slot",
+                        (byte) 3)
+                .endCompound()
+                .endList()
+                .endCompound();
+        Assert.assertArrayEquals(vanilla(compound),
+                toArray(data));
+    }
+
+    @Test
+    public void readerRestoresWrittenCompound() {
+        NBTTagCompound compound = sample();
+        ByteBuf data = Unpooled.buffer();
+        new NBTStreamWriter(data).beginCompound("")
+                .writeEntries(compound)
+                .endCompound();
+        Assert.assertEquals(compound,
+                new NBTStreamReader(data).readCompound());
+        Assert.assertFalse(data.isReadable());
+    }
+}